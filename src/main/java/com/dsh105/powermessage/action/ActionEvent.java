@@ -17,20 +17,33 @@
 
 package com.dsh105.powermessage.action;
 
+import com.dsh105.powermessage.core.JsonStrings;
 import com.dsh105.powermessage.core.JsonWritable;
+import com.dsh105.powermessage.core.TextPool;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableMap;
 import org.apache.commons.lang.Validate;
 import org.bukkit.craftbukkit.libs.com.google.gson.stream.JsonWriter;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Represents an event that can be called by a {@link com.dsh105.powermessage.core.PowerMessage}
  */
-public class ActionEvent implements JsonWritable {
+public class ActionEvent implements JsonWritable, Cloneable {
+
+    private static final Map<String, String> JSON_KEYS = ImmutableMap.of("click", "clickEvent", "hover", "hoverEvent");
 
     private String actionType;
+    private String jsonKey;
     private String name;
     private String data;
+    // Evaluated the first time the data is needed
+    private Supplier<String> dataSupplier;
+    // Only set once the event has been validated
+    private String jsonFragment;
 
     /**
      * Constructs a new action event with a certain type
@@ -39,6 +52,10 @@ public class ActionEvent implements JsonWritable {
      */
     public ActionEvent(String actionType) {
         this.actionType = actionType;
+        this.jsonKey = JSON_KEYS.get(actionType);
+        if (this.jsonKey == null) {
+            this.jsonKey = actionType + "Event";
+        }
     }
 
     /**
@@ -49,6 +66,7 @@ public class ActionEvent implements JsonWritable {
      */
     public ActionEvent withName(String name) {
         this.name = name;
+        this.jsonFragment = null;
         return this;
     }
 
@@ -59,7 +77,25 @@ public class ActionEvent implements JsonWritable {
      * @return This object
      */
     public ActionEvent withData(String data) {
-        this.data = data;
+        this.data = TextPool.pool(data);
+        this.dataSupplier = null;
+        this.jsonFragment = null;
+        return this;
+    }
+
+    /**
+     * Sets the data of an event, to be retrieved from the given supplier the first time it is needed
+     * <p>
+     * The supplier is only called once, usually when the message containing this event is first converted to JSON
+     *
+     * @param data Supplier of the data of the event
+     * @return This object
+     */
+    public ActionEvent withData(Supplier<String> data) {
+        Validate.notNull(data, "Action data supplier cannot be null!");
+        this.data = null;
+        this.dataSupplier = data;
+        this.jsonFragment = null;
         return this;
     }
 
@@ -87,15 +123,80 @@ public class ActionEvent implements JsonWritable {
      * @return Data of the action
      */
     public String getData() {
+        Supplier<String> supplier = dataSupplier;
+        if (supplier != null) {
+            this.data = TextPool.pool(supplier.get());
+            this.dataSupplier = null;
+        }
         return data;
     }
 
+    /**
+     * Checks that this event has both a name and data
+     * <p>
+     * Data that is yet to be supplied is not checked until it has been retrieved
+     *
+     * @return This object
+     * @throws IllegalArgumentException If the name or data is empty
+     */
+    public ActionEvent validate() {
+        Validate.notEmpty(name, "Action name cannot be empty!");
+        if (dataSupplier == null) {
+            Validate.notEmpty(data, "Action data cannot be empty!");
+        }
+        return this;
+    }
+
+    /**
+     * Gets the escaped JSON of this event as it appears within a snippet, e.g. {@code "clickEvent":{...}}
+     * <p>
+     * The fragment is built and validated once, and reused until the name or data of the event is changed
+     *
+     * @return JSON fragment representing this event
+     */
+    public String getJsonFragment() {
+        String fragment = jsonFragment;
+        if (fragment == null) {
+            String data = getData();
+            validate();
+            StringBuilder builder = new StringBuilder(jsonKey.length() + name.length() + data.length() + 32).append('"').append(jsonKey).append("\":{\"action\":");
+            JsonStrings.appendQuoted(builder, name).append(",\"value\":");
+            fragment = JsonStrings.appendQuoted(builder, data).append('}').toString();
+            jsonFragment = fragment;
+        }
+        return fragment;
+    }
+
     @Override
     public JsonWriter writeJson(JsonWriter writer) throws IOException {
-        Validate.notEmpty(name, "Action name cannot be empty!");
-        Validate.notEmpty(data, "Action data cannot be empty!");
+        if (jsonFragment == null) {
+            getData();
+            validate();
+        }
 
-        writer.name(actionType + "Event").beginObject().name("action").value(this.name).name("value").value(this.data).endObject();
+        writer.name(jsonKey).beginObject().name("action").value(this.name).name("value").value(this.data).endObject();
         return writer;
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ActionEvent)) {
+            return false;
+        }
+        ActionEvent other = (ActionEvent) o;
+        return Objects.equals(actionType, other.actionType) && Objects.equals(name, other.name) && Objects.equals(getData(), other.getData());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(actionType, name, getData());
+    }
+
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        return super.clone();
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.action;
+
+import org.bukkit.entity.Player;
+
+/**
+ * Represents code to be run when a player clicks a {@link com.dsh105.powermessage.core.PowerMessage}
+ */
+public interface ClickCallback {
+
+    /**
+     * Called when a player clicks the message this callback was attached to
+     *
+     * @param player Player that clicked the message
+     */
+    void onClick(Player player);
+}
@@ -0,0 +1,277 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.action;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.plugin.Plugin;
+
+import java.security.SecureRandom;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps track of the {@link com.dsh105.powermessage.action.ClickCallback}s attached to messages
+ * <p>
+ * Each callback is stored under a random token and attached to a message as a command containing that token. When
+ * the command is performed, the callback is looked up directly by its token. Callbacks expire after a set time and
+ * are cleared out by a timing wheel, so the number of callbacks held never grows without bound
+ * <p>
+ * Callbacks are only run once the registry has been enabled by a plugin through {@link #enable(org.bukkit.plugin.Plugin)}
+ */
+public class ClickCallbackRegistry implements Listener {
+
+    /**
+     * Command used to trigger callbacks
+     */
+    public static final String COMMAND = "/powermessage:callback";
+
+    /**
+     * Time callbacks are kept for if not otherwise specified, in milliseconds
+     */
+    public static final long DEFAULT_EXPIRY = TimeUnit.MINUTES.toMillis(5);
+
+    private static final ClickCallbackRegistry DEFAULT = new ClickCallbackRegistry();
+
+    private static final int WHEEL_SIZE = 512;
+    private static final long TICK_MILLIS = 1000L;
+
+    private final SecureRandom random = new SecureRandom();
+    private final ConcurrentHashMap<Long, Entry> callbacks = new ConcurrentHashMap<>();
+    private final Queue<Long>[] wheel;
+    private final AtomicBoolean advancing = new AtomicBoolean();
+    private volatile long currentTick;
+    private volatile long defaultExpiry = DEFAULT_EXPIRY;
+    private volatile boolean enabled;
+
+    /**
+     * Constructs a new, empty ClickCallbackRegistry
+     */
+    @SuppressWarnings("unchecked")
+    public ClickCallbackRegistry() {
+        this.wheel = (Queue<Long>[]) new Queue<?>[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.currentTick = tickOf(System.currentTimeMillis());
+    }
+
+    /**
+     * Gets the registry used by {@link com.dsh105.powermessage.core.MessageBuilder#onClick(ClickCallback)}
+     *
+     * @return The default registry
+     */
+    public static ClickCallbackRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Begins listening for clicks on behalf of a plugin
+     * <p>
+     * Enabling more than once has no effect
+     *
+     * @param plugin Plugin to listen for clicks with
+     */
+    public synchronized void enable(Plugin plugin) {
+        if (!enabled) {
+            plugin.getServer().getPluginManager().registerEvents(this, plugin);
+            enabled = true;
+        }
+    }
+
+    /**
+     * Sets the time that callbacks are kept for if not otherwise specified
+     *
+     * @param expiry Time until expiry
+     * @param unit   Unit of the given time
+     */
+    public void setDefaultExpiry(long expiry, TimeUnit unit) {
+        this.defaultExpiry = unit.toMillis(expiry);
+    }
+
+    /**
+     * Gets the number of callbacks currently held
+     *
+     * @return Number of callbacks held
+     */
+    public int size() {
+        return callbacks.size();
+    }
+
+    /**
+     * Registers a callback that expires after the default time
+     *
+     * @param callback Callback to register
+     * @return Command that triggers the callback when performed
+     */
+    public String register(ClickCallback callback) {
+        return register(callback, defaultExpiry, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registers a callback
+     *
+     * @param callback Callback to register
+     * @param expiry   Time until the callback expires
+     * @param unit     Unit of the given time
+     * @return Command that triggers the callback when performed
+     */
+    public String register(ClickCallback callback, long expiry, TimeUnit unit) {
+        if (callback == null) {
+            throw new IllegalArgumentException("Callback cannot be null");
+        }
+
+        long now = System.currentTimeMillis();
+        advance(now);
+
+        Entry entry = new Entry(callback, now + unit.toMillis(expiry));
+        long token;
+        do {
+            token = random.nextLong();
+        } while (callbacks.putIfAbsent(token, entry) != null);
+        schedule(token, entry.expiresAt);
+
+        return COMMAND + " " + Long.toHexString(token);
+    }
+
+    /**
+     * Runs the callback represented by a command, if it has not expired
+     *
+     * @param player  Player that performed the command
+     * @param command Command that was performed
+     * @return True if the command represented a callback
+     */
+    public boolean dispatch(Player player, String command) {
+        if (!command.regionMatches(true, 0, COMMAND, 0, COMMAND.length()) || command.length() <= COMMAND.length() + 1 || command.charAt(COMMAND.length()) != ' ') {
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        advance(now);
+
+        long token;
+        try {
+            token = parseToken(command.substring(COMMAND.length() + 1).trim());
+        } catch (NumberFormatException e) {
+            return true;
+        }
+
+        Entry entry = callbacks.get(token);
+        if (entry != null && entry.expiresAt > now) {
+            entry.callback.onClick(player);
+        }
+        return true;
+    }
+
+    /**
+     * Removes all callbacks from this registry
+     */
+    public void clear() {
+        callbacks.clear();
+        for (Queue<Long> slot : wheel) {
+            slot.clear();
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST, ignoreCancelled = true)
+    public void onCommand(PlayerCommandPreprocessEvent event) {
+        if (dispatch(event.getPlayer(), event.getMessage())) {
+            event.setCancelled(true);
+        }
+    }
+
+    private void schedule(long token, long expiresAt) {
+        // Callbacks that expire beyond one turn of the wheel are rescheduled when their slot comes around
+        long tick = Math.max(tickOf(expiresAt), currentTick);
+        wheel[(int) (tick % WHEEL_SIZE)].add(token);
+    }
+
+    private void advance(long now) {
+        long target = tickOf(now);
+        if (target <= currentTick || !advancing.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            // Visiting every slot once is enough to catch up after a long pause
+            long from = Math.max(currentTick, target - WHEEL_SIZE);
+            for (long tick = from; tick < target; tick++) {
+                expire(wheel[(int) (tick % WHEEL_SIZE)], now);
+            }
+            currentTick = target;
+        } finally {
+            advancing.set(false);
+        }
+    }
+
+    private void expire(Queue<Long> slot, long now) {
+        int pending = slot.size();
+        for (int i = 0; i < pending; i++) {
+            Long token = slot.poll();
+            if (token == null) {
+                break;
+            }
+
+            Entry entry = callbacks.get(token);
+            if (entry == null) {
+                continue;
+            }
+            if (entry.expiresAt <= now) {
+                callbacks.remove(token, entry);
+            } else {
+                schedule(token, entry.expiresAt);
+            }
+        }
+    }
+
+    private static long tickOf(long millis) {
+        return millis / TICK_MILLIS;
+    }
+
+    private static long parseToken(String token) {
+        if (token.isEmpty() || token.length() > 16) {
+            throw new NumberFormatException("Invalid token: " + token);
+        }
+        long value = 0L;
+        for (int i = 0; i < token.length(); i++) {
+            int digit = Character.digit(token.charAt(i), 16);
+            if (digit < 0) {
+                throw new NumberFormatException("Invalid token: " + token);
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    private static class Entry {
+
+        private final ClickCallback callback;
+        private final long expiresAt;
+
+        public Entry(ClickCallback callback, long expiresAt) {
+            this.callback = callback;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
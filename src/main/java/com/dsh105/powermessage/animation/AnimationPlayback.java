@@ -0,0 +1,102 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.animation;
+
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Represents a {@link com.dsh105.powermessage.animation.MessageAnimation} being played to a group of players
+ */
+public class AnimationPlayback extends BukkitRunnable {
+
+    private final MessageAnimation animation;
+    private final boolean loop;
+    private final Set<Player> recipients = new CopyOnWriteArraySet<>();
+    private int frame;
+
+    protected AnimationPlayback(MessageAnimation animation, boolean loop, Collection<? extends Player> recipients) {
+        this.animation = animation;
+        this.loop = loop;
+        this.recipients.addAll(recipients);
+    }
+
+    /**
+     * Gets the animation being played
+     *
+     * @return The animation being played
+     */
+    public MessageAnimation getAnimation() {
+        return animation;
+    }
+
+    /**
+     * Gets the index of the next frame to be shown
+     *
+     * @return Index of the next frame
+     */
+    public int getFrame() {
+        return frame;
+    }
+
+    /**
+     * Adds a player to the audience of this playback
+     *
+     * @param player Player to add
+     */
+    public void addRecipient(Player player) {
+        recipients.add(player);
+    }
+
+    /**
+     * Removes a player from the audience of this playback
+     *
+     * @param player Player to remove
+     */
+    public void removeRecipient(Player player) {
+        recipients.remove(player);
+    }
+
+    @Override
+    public void run() {
+        ArrayList<Player> online = new ArrayList<>(recipients.size());
+        for (Player player : recipients) {
+            if (player.isOnline()) {
+                online.add(player);
+            } else {
+                recipients.remove(player);
+            }
+        }
+
+        if (!online.isEmpty()) {
+            animation.getFrame(frame).send(online.toArray(new Player[online.size()]));
+        }
+
+        if (++frame >= animation.getFrameCount()) {
+            frame = 0;
+            if (!loop) {
+                cancel();
+            }
+        }
+    }
+}
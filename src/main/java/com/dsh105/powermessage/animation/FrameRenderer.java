@@ -0,0 +1,35 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.animation;
+
+import com.dsh105.powermessage.core.PowerMessage;
+
+/**
+ * Produces the frames of a {@link com.dsh105.powermessage.animation.MessageAnimation}
+ */
+public interface FrameRenderer {
+
+    /**
+     * Renders a single frame of an animation
+     *
+     * @param base  A copy of the animation's base message, which may be freely modified and returned
+     * @param frame Index of the frame to render
+     * @return Message representing the frame
+     */
+    PowerMessage render(PowerMessage base, int frame);
+}
@@ -0,0 +1,159 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.animation;
+
+import com.dsh105.powermessage.core.PowerMessage;
+import com.dsh105.powermessage.core.PrecompiledMessage;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An animated message made up of a fixed cycle of frames, such as a scrolling ticker or a blinking highlight
+ * <p>
+ * Each frame is rendered and converted once, either all at once through {@link #precompute()} or on first use, in
+ * which case a limited number of frames are kept. Playing the animation then only requires looking up and sending
+ * the current frame
+ */
+public class MessageAnimation {
+
+    /**
+     * Number of frames kept when frames are rendered on first use
+     */
+    public static final int DEFAULT_CACHE_SIZE = 64;
+
+    private final PowerMessage base;
+    private final int frameCount;
+    private final FrameRenderer renderer;
+
+    private volatile PrecompiledMessage[] precomputed;
+    private final Map<Integer, PrecompiledMessage> cache;
+
+    /**
+     * Constructs a new MessageAnimation
+     *
+     * @param base       Message that each frame is rendered from
+     * @param frameCount Number of frames in a cycle
+     * @param renderer   Renderer used to produce each frame
+     */
+    public MessageAnimation(PowerMessage base, int frameCount, FrameRenderer renderer) {
+        this(base, frameCount, renderer, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Constructs a new MessageAnimation
+     *
+     * @param base       Message that each frame is rendered from
+     * @param frameCount Number of frames in a cycle
+     * @param renderer   Renderer used to produce each frame
+     * @param cacheSize  Maximum number of frames to keep when frames are rendered on first use
+     */
+    public MessageAnimation(PowerMessage base, int frameCount, FrameRenderer renderer, final int cacheSize) {
+        if (frameCount <= 0) {
+            throw new IllegalArgumentException("Animation must have at least one frame");
+        }
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.base = base;
+        this.frameCount = frameCount;
+        this.renderer = renderer;
+        this.cache = new LinkedHashMap<Integer, PrecompiledMessage>(16, 0.75F, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, PrecompiledMessage> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Gets the number of frames in a cycle of this animation
+     *
+     * @return Number of frames
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Renders and converts every frame of this animation so that none need to be rendered while it is playing
+     *
+     * @return This object
+     */
+    public MessageAnimation precompute() {
+        PrecompiledMessage[] frames = new PrecompiledMessage[frameCount];
+        for (int i = 0; i < frameCount; i++) {
+            frames[i] = render(i);
+        }
+        precomputed = frames;
+        return this;
+    }
+
+    /**
+     * Gets a frame of this animation, rendering it if necessary
+     *
+     * @param index Index of the frame. Values outside of the cycle wrap around
+     * @return The requested frame
+     */
+    public PrecompiledMessage getFrame(int index) {
+        int frame = ((index % frameCount) + frameCount) % frameCount;
+        PrecompiledMessage[] frames = precomputed;
+        if (frames != null) {
+            return frames[frame];
+        }
+
+        synchronized (cache) {
+            PrecompiledMessage result = cache.get(frame);
+            if (result == null) {
+                result = render(frame);
+                cache.put(frame, result);
+            }
+            return result;
+        }
+    }
+
+    private PrecompiledMessage render(int frame) {
+        PowerMessage rendered;
+        try {
+            rendered = renderer.render((PowerMessage) base.clone(), frame);
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+        return new PrecompiledMessage(String.valueOf(frame), rendered.toJson(), rendered.getContent());
+    }
+
+    /**
+     * Begins playing this animation to a group of players
+     *
+     * @param plugin     Plugin to schedule the animation with
+     * @param period     Number of ticks between frames
+     * @param loop       True to repeat the animation until stopped, false to stop after a single cycle
+     * @param recipients Whom to play the animation to
+     * @return The running playback, which can be used to change recipients or stop the animation
+     */
+    public AnimationPlayback play(Plugin plugin, long period, boolean loop, Collection<? extends Player> recipients) {
+        AnimationPlayback playback = new AnimationPlayback(this, loop, recipients);
+        playback.runTaskTimer(plugin, 0L, period);
+        return playback;
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dsh105.powermessage.codec;
+
+import com.dsh105.powermessage.action.ActionEvent;
+import com.dsh105.powermessage.core.PowerMessage;
+import com.dsh105.powermessage.core.PowerSnippet;
+import com.dsh105.powermessage.exception.InvalidMessageException;
+import org.bukkit.ChatColor;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes {@link com.dsh105.powermessage.core.PowerMessage}s in a compact binary form, suitable for forwarding
+ * messages between servers
+ * <p>
+ * Every distinct string in a message (snippet text, event types, names and data) is written once to a string table and
+ * referred to by index. Numbers are written as variable-length integers, and the colour and styles of each snippet are
+ * packed into a single number where possible
+ */
+public final class BinaryCodec {
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final ChatColor[] COLOURS = ChatColor.values();
+    private static final List<ChatColor> FORMATS = new ArrayList<>();
+
+    // Style bits: the colour (ordinal + 1) in the lowest five bits, followed by one bit per format
+    private static final int COLOUR_BITS = 5;
+    private static final int COLOUR_MASK = (1 << COLOUR_BITS) - 1;
+    // Set if the snippet's colours could not be packed, and are written as a list instead
+    private static final int EXPLICIT_COLOURS;
+
+    static {
+        for (ChatColor colour : COLOURS) {
+            if (colour.isFormat()) {
+                FORMATS.add(colour);
+            }
+        }
+        EXPLICIT_COLOURS = 1 << (COLOUR_BITS + FORMATS.size());
+    }
+
+    private BinaryCodec() {
+    }
+
+    /**
+     * Encodes a message into a new buffer
+     *
+     * @param message Message to encode
+     * @return A buffer containing the encoded message, ready to be read
+     */
+    public static ByteBuffer encode(PowerMessage message) {
+        Encoder encoder = new Encoder(message);
+        ByteBuffer buffer = ByteBuffer.allocate(encoder.size());
+        encoder.write(buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Encodes a message into an existing buffer, starting at its current position
+     *
+     * @param message Message to encode
+     * @param buffer  Buffer to write to
+     * @return The number of bytes written
+     * @throws java.nio.BufferOverflowException if the buffer does not have enough space remaining
+     */
+    public static int encode(PowerMessage message, ByteBuffer buffer) {
+        Encoder encoder = new Encoder(message);
+        int size = encoder.size();
+        if (buffer.remaining() < size) {
+            throw new BufferOverflowException();
+        }
+        encoder.write(buffer);
+        return size;
+    }
+
+    /**
+     * Decodes a message from a buffer, starting at its current position
+     * <p>
+     * The position of the buffer is advanced past the encoded message
+     *
+     * @param buffer Buffer to read from
+     * @return The decoded message
+     * @throws com.dsh105.powermessage.exception.InvalidMessageException if the buffer does not contain a valid message
+     */
+    public static PowerMessage decode(ByteBuffer buffer) {
+        try {
+            byte version = buffer.get();
+            if (version != FORMAT_VERSION) {
+                throw new InvalidMessageException("Unsupported message format: " + version);
+            }
+
+            // Each string takes at least one byte for its length
+            String[] strings = new String[readCount(buffer, 1)];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = readString(buffer);
+            }
+
+            PowerMessage message = new PowerMessage();
+            // Each snippet takes at least one byte each for its text, style and event count
+            int snippetCount = readCount(buffer, 3);
+            for (int i = 0; i < snippetCount; i++) {
+                PowerSnippet snippet = new PowerSnippet(lookup(strings, readVarInt(buffer)));
+                int style = readVarInt(buffer);
+                if ((style & EXPLICIT_COLOURS) != 0) {
+                    int colourCount = readCount(buffer, 1);
+                    for (int j = 0; j < colourCount; j++) {
+                        snippet.withColour(colour(readVarInt(buffer)));
+                    }
+                } else {
+                    if ((style & COLOUR_MASK) != 0) {
+                        snippet.withColour(colour((style & COLOUR_MASK) - 1));
+                    }
+                    for (int j = 0; j < FORMATS.size(); j++) {
+                        if ((style & (1 << (COLOUR_BITS + j))) != 0) {
+                            snippet.withColour(FORMATS.get(j));
+                        }
+                    }
+                }
+
+                int eventCount = readCount(buffer, 3);
+                for (int j = 0; j < eventCount; j++) {
+                    // Added as they were encoded, since events with the same type and name were already combined
+                    ActionEvent event = new ActionEvent(lookup(strings, readVarInt(buffer)));
+                    snippet.withActionEvent(event.withName(lookup(strings, readVarInt(buffer))).withData(lookup(strings, readVarInt(buffer))));
+                }
+                message.then(snippet);
+            }
+            return message;
+        } catch (BufferUnderflowException e) {
+            throw new InvalidMessageException("Encoded message is incomplete", e);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidMessageException("Encoded message contains an invalid event", e);
+        }
+    }
+
+    // Reads the number of entries that follow, each of which takes at least the given number of bytes
+    private static int readCount(ByteBuffer buffer, int minimumSize) {
+        int count = readVarInt(buffer);
+        if (count < 0 || count > buffer.remaining() / minimumSize) {
+            throw new InvalidMessageException("Invalid entry count: " + count);
+        }
+        return count;
+    }
+
+    private static String lookup(String[] strings, int index) {
+        if (index < 0 || index >= strings.length) {
+            throw new InvalidMessageException("Invalid string index: " + index);
+        }
+        return strings[index];
+    }
+
+    private static ChatColor colour(int ordinal) {
+        if (ordinal < 0 || ordinal >= COLOURS.length) {
+            throw new InvalidMessageException("Invalid colour: " + ordinal);
+        }
+        return COLOURS[ordinal];
+    }
+
+    private static int packStyle(List<ChatColor> colours) {
+        int style = 0;
+        for (ChatColor colour : colours) {
+            if (colour.isFormat()) {
+                style |= 1 << (COLOUR_BITS + FORMATS.indexOf(colour));
+            } else if ((style & COLOUR_MASK) == 0) {
+                style |= colour.ordinal() + 1;
+            } else {
+                return EXPLICIT_COLOURS;
+            }
+        }
+
+        // Only pack colours that are decoded in the same order
+        int expected = (style & COLOUR_MASK) == 0 ? 0 : 1;
+        for (int i = 0; i < FORMATS.size(); i++) {
+            if ((style & (1 << (COLOUR_BITS + i))) != 0) {
+                expected++;
+            }
+        }
+        if (expected != colours.size()) {
+            return EXPLICIT_COLOURS;
+        }
+        int lastFormat = -1;
+        for (int i = 0; i < colours.size(); i++) {
+            ChatColor colour = colours.get(i);
+            if (!colour.isFormat()) {
+                if (i != 0) {
+                    return EXPLICIT_COLOURS;
+                }
+            } else {
+                int format = FORMATS.indexOf(colour);
+                if (format < lastFormat) {
+                    return EXPLICIT_COLOURS;
+                }
+                lastFormat = format;
+            }
+        }
+        return style;
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static void writeVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new InvalidMessageException("Variable-length integer is too long");
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = readVarInt(buffer);
+        if (length < 0 || length > buffer.remaining()) {
+            throw new InvalidMessageException("Invalid string length: " + length);
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, UTF_8);
+        }
+        return value;
+    }
+
+    // Builds the string table and packed styles up front, so that the encoded size is known before writing
+    private static class Encoder {
+
+        private final List<PowerSnippet> snippets;
+        private final Map<String, Integer> stringIndices = new HashMap<>();
+        private final List<byte[]> strings = new ArrayList<>();
+        private final int[] styles;
+        private int size;
+
+        public Encoder(PowerMessage message) {
+            this.snippets = message.getSnippets();
+            this.styles = new int[snippets.size()];
+
+            size = 1 + varIntSize(snippets.size());
+            for (int i = 0; i < snippets.size(); i++) {
+                PowerSnippet snippet = snippets.get(i);
+                size += varIntSize(index(snippet.getText()));
+
+                List<ChatColor> colours = snippet.getColours();
+                styles[i] = packStyle(colours);
+                size += varIntSize(styles[i]);
+                if (styles[i] == EXPLICIT_COLOURS) {
+                    size += varIntSize(colours.size());
+                    for (ChatColor colour : colours) {
+                        size += varIntSize(colour.ordinal());
+                    }
+                }
+
+                List<ActionEvent> events = snippet.getActionEvents();
+                size += varIntSize(events.size());
+                for (ActionEvent event : events) {
+                    size += varIntSize(index(event.getActionType()));
+                    size += varIntSize(index(event.getName()));
+                    size += varIntSize(index(event.getData()));
+                }
+            }
+
+            size += varIntSize(strings.size());
+            for (byte[] bytes : strings) {
+                size += varIntSize(bytes.length) + bytes.length;
+            }
+        }
+
+        private int index(String value) {
+            if (value == null) {
+                throw new InvalidMessageException("Cannot encode a message with missing text or event data");
+            }
+            Integer index = stringIndices.get(value);
+            if (index == null) {
+                index = strings.size();
+                stringIndices.put(value, index);
+                strings.add(value.getBytes(UTF_8));
+            }
+            return index;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void write(ByteBuffer buffer) {
+            buffer.put(FORMAT_VERSION);
+            writeVarInt(buffer, strings.size());
+            for (byte[] bytes : strings) {
+                writeVarInt(buffer, bytes.length);
+                buffer.put(bytes);
+            }
+
+            writeVarInt(buffer, snippets.size());
+            for (int i = 0; i < snippets.size(); i++) {
+                PowerSnippet snippet = snippets.get(i);
+                writeVarInt(buffer, stringIndices.get(snippet.getText()));
+                writeVarInt(buffer, styles[i]);
+                if (styles[i] == EXPLICIT_COLOURS) {
+                    List<ChatColor> colours = snippet.getColours();
+                    writeVarInt(buffer, colours.size());
+                    for (ChatColor colour : colours) {
+                        writeVarInt(buffer, colour.ordinal());
+                    }
+                }
+
+                List<ActionEvent> events = snippet.getActionEvents();
+                writeVarInt(buffer, events.size());
+                for (ActionEvent event : events) {
+                    writeVarInt(buffer, stringIndices.get(event.getActionType()));
+                    writeVarInt(buffer, stringIndices.get(event.getName()));
+                    writeVarInt(buffer, stringIndices.get(event.getData()));
+                }
+            }
+        }
+    }
+}
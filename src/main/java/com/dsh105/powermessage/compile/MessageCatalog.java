@@ -0,0 +1,57 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.compile;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class for which a catalog of precompiled messages should be generated at build time
+ * <p>
+ * The referenced YAML file maps message identifiers (nested keys are joined with {@code .}) to either markup
+ * understood by {@link com.dsh105.powermessage.markup.MarkupBuilder} or a serialized
+ * {@link com.dsh105.powermessage.core.PowerMessage}. When compiling with PowerMessage, CraftBukkit and Commodus on the
+ * annotation processor path, the
+ * {@link com.dsh105.powermessage.compile.MessageCatalogProcessor} generates a class in the same package holding the
+ * JSON and legacy text of each message as constants, along with a
+ * {@link com.dsh105.powermessage.core.PrecompiledMessage} for each
+ * <p>
+ * For example, {@code @MessageCatalog("messages.yml")} on {@code MyPlugin} generates {@code MyPluginMessages}
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface MessageCatalog {
+
+    /**
+     * Path of the message file, relative to the root of the compiled classes or source path
+     *
+     * @return Path of the message file
+     */
+    String value();
+
+    /**
+     * Simple name of the class to generate
+     * <p>
+     * Defaults to the name of the annotated class followed by {@code Messages}
+     *
+     * @return Name of the class to generate
+     */
+    String className() default "";
+}
@@ -0,0 +1,255 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.compile;
+
+import com.dsh105.powermessage.core.PowerMessage;
+import com.dsh105.powermessage.core.PowerSnippet;
+import com.dsh105.powermessage.markup.MarkupBuilder;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Generates classes of precompiled messages for types annotated with {@link com.dsh105.powermessage.compile.MessageCatalog}
+ * <p>
+ * Messages are built with {@link com.dsh105.powermessage.core.PowerMessage} and
+ * {@link com.dsh105.powermessage.markup.MarkupBuilder} while compiling, so CraftBukkit and Commodus must be on the
+ * annotation processor path alongside PowerMessage (e.g. {@code -processorpath}, or the
+ * {@code annotationProcessorPaths} of the Maven compiler plugin)
+ */
+@SupportedAnnotationTypes("com.dsh105.powermessage.compile.MessageCatalog")
+public class MessageCatalogProcessor extends AbstractProcessor {
+
+    // Limit imposed by the class file format on a single string constant
+    private static final int MAX_CONSTANT_LENGTH = 65535;
+    // Messages created by each nested class, keeping every static initializer well within the 64KB method size limit
+    private static final int CHUNK_SIZE = 500;
+    // Each message adds around ten entries to the constant pool of the generated class, which is limited to 65535
+    private static final int MAX_MESSAGES = 5000;
+
+    private static final StandardLocation[] RESOURCE_LOCATIONS = {StandardLocation.CLASS_OUTPUT, StandardLocation.SOURCE_PATH, StandardLocation.CLASS_PATH};
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(MessageCatalog.class)) {
+            if (!(element instanceof TypeElement)) {
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            MessageCatalog catalog = type.getAnnotation(MessageCatalog.class);
+            String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+            String className = catalog.className().isEmpty() ? type.getSimpleName() + "Messages" : catalog.className();
+
+            try {
+                Map<String, PowerMessage> messages = compile(readResource(catalog.value()));
+                writeCatalog(type, packageName, className, messages);
+            } catch (IOException | InvalidConfigurationException | RuntimeException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to compile messages from " + catalog.value() + ": " + e.getMessage(), type);
+            } catch (LinkageError e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to compile messages from " + catalog.value() + ": " + e + " (CraftBukkit and Commodus must be on the annotation processor path)", type);
+            }
+        }
+        return true;
+    }
+
+    private String readResource(String path) throws IOException {
+        Filer filer = processingEnv.getFiler();
+        for (StandardLocation location : RESOURCE_LOCATIONS) {
+            try {
+                FileObject resource = filer.getResource(location, "", path);
+                return resource.getCharContent(true).toString();
+            } catch (IOException | IllegalArgumentException ignored) {
+                // Try the next location
+            }
+        }
+        throw new IOException("Could not find " + path);
+    }
+
+    private Map<String, PowerMessage> compile(String source) throws InvalidConfigurationException {
+        // Make sure stored messages can be deserialized
+        ConfigurationSerialization.registerClass(PowerMessage.class);
+        ConfigurationSerialization.registerClass(PowerSnippet.class);
+
+        YamlConfiguration config = new YamlConfiguration();
+        config.loadFromString(source);
+
+        Map<String, PowerMessage> messages = new LinkedHashMap<>();
+        for (String key : config.getKeys(true)) {
+            Object value = config.get(key);
+            if (value instanceof PowerMessage) {
+                messages.put(key, (PowerMessage) value);
+            } else if (value instanceof String) {
+                messages.put(key, new MarkupBuilder().withText((String) value).build());
+            }
+        }
+        return messages;
+    }
+
+    private void writeCatalog(TypeElement type, String packageName, String className, Map<String, PowerMessage> messages) throws IOException {
+        if (messages.size() > MAX_MESSAGES) {
+            throw new IllegalArgumentException("Too many messages (" + messages.size() + ") to precompile into one class, the limit is " + MAX_MESSAGES);
+        }
+        Set<String> constantNames = new HashSet<>();
+        for (String id : messages.keySet()) {
+            if (!constantNames.add(toConstantName(id))) {
+                throw new IllegalArgumentException("More than one message is named " + toConstantName(id));
+            }
+        }
+
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+        try (PrintWriter out = new PrintWriter(file.openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("import com.dsh105.powermessage.core.PrecompiledMessage;");
+            out.println();
+            out.println("import java.util.Collections;");
+            out.println("import java.util.LinkedHashMap;");
+            out.println("import java.util.Map;");
+            out.println();
+            out.println("/**");
+            out.println(" * Messages precompiled from {@code " + type.getAnnotation(MessageCatalog.class).value() + "}");
+            out.println(" * <p>");
+            out.println(" * Generated by " + getClass().getName() + ". Do not edit");
+            out.println(" */");
+            out.println("public final class " + className + " {");
+            out.println();
+
+            List<String> ids = new ArrayList<>(messages.keySet());
+            for (int i = 0; i < ids.size(); i++) {
+                String id = ids.get(i);
+                String constant = toConstantName(id);
+                PowerMessage message = messages.get(id);
+                out.println("    public static final String " + constant + "_JSON = " + toLiteral(id, message.toJson()) + ";");
+                out.println("    public static final String " + constant + "_LEGACY = " + toLiteral(id, message.getContent()) + ";");
+                out.println("    public static final PrecompiledMessage " + constant + " = " + chunkName(i / CHUNK_SIZE) + "." + constant + ";");
+                out.println();
+            }
+
+            out.println("    public static final Map<String, PrecompiledMessage> MESSAGES;");
+            out.println();
+            out.println("    static {");
+            out.println("        Map<String, PrecompiledMessage> messages = new LinkedHashMap<>();");
+            for (int chunk = 0; chunk * CHUNK_SIZE < ids.size(); chunk++) {
+                out.println("        " + chunkName(chunk) + ".register(messages);");
+            }
+            out.println("        MESSAGES = Collections.unmodifiableMap(messages);");
+            out.println("    }");
+            out.println();
+
+            // Messages are created by nested classes, as a single static initializer only has room for a couple of thousand
+            for (int chunk = 0; chunk * CHUNK_SIZE < ids.size(); chunk++) {
+                List<String> chunkIds = ids.subList(chunk * CHUNK_SIZE, Math.min(ids.size(), (chunk + 1) * CHUNK_SIZE));
+                out.println("    private static final class " + chunkName(chunk) + " {");
+                out.println();
+                for (String id : chunkIds) {
+                    String constant = toConstantName(id);
+                    out.println("        static final PrecompiledMessage " + constant + " = new PrecompiledMessage(" + toLiteral(id, id) + ", " + constant + "_JSON, " + constant + "_LEGACY);");
+                }
+                out.println();
+                out.println("        static void register(Map<String, PrecompiledMessage> messages) {");
+                for (String id : chunkIds) {
+                    String constant = toConstantName(id);
+                    out.println("            messages.put(" + constant + ".getId(), " + constant + ");");
+                }
+                out.println("        }");
+                out.println("    }");
+                out.println();
+            }
+
+            out.println("    private " + className + "() {");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    private static String chunkName(int chunk) {
+        return "Chunk" + chunk;
+    }
+
+    private static String toConstantName(String id) {
+        StringBuilder builder = new StringBuilder(id.length());
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            builder.append(Character.isLetterOrDigit(c) && c < 128 ? Character.toUpperCase(c) : '_');
+        }
+        if (builder.length() == 0 || Character.isDigit(builder.charAt(0))) {
+            builder.insert(0, '_');
+        }
+        return builder.toString();
+    }
+
+    private static String toLiteral(String id, String value) {
+        if (value.getBytes(StandardCharsets.UTF_8).length > MAX_CONSTANT_LENGTH) {
+            throw new IllegalArgumentException("Message " + id + " is too large to be precompiled");
+        }
+
+        StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7E) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+                    break;
+            }
+        }
+        return builder.append('"').toString();
+    }
+}
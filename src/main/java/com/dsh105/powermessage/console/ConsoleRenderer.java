@@ -0,0 +1,225 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dsh105.powermessage.console;
+
+import com.dsh105.powermessage.action.ActionEvent;
+import com.dsh105.powermessage.action.ClickCallbackRegistry;
+import com.dsh105.powermessage.core.PowerMessage;
+import com.dsh105.powermessage.core.PowerSnippet;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.command.RemoteConsoleCommandSender;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Renders {@link com.dsh105.powermessage.core.PowerMessage}s as text for senders that cannot display JSON messages,
+ * such as the server console and RCON
+ * <p>
+ * Renderers are not used unless set with {@link #setConsoleRenderer(ConsoleRenderer)} or
+ * {@link #setRemoteConsoleRenderer(ConsoleRenderer)}, in which case messages sent to those senders are rendered once
+ * and reused until the message is next modified
+ */
+public class ConsoleRenderer {
+
+    /**
+     * Renders messages with ANSI colour codes
+     */
+    public static final ConsoleRenderer ANSI = new ConsoleRenderer(true, false);
+
+    /**
+     * Renders messages as plain text, without any colours
+     */
+    public static final ConsoleRenderer PLAIN = new ConsoleRenderer(false, false);
+
+    private static final String ANSI_RESET = "\u001B[m";
+    private static final Map<ChatColor, String> ANSI_CODES = new EnumMap<>(ChatColor.class);
+
+    static {
+        ANSI_CODES.put(ChatColor.BLACK, "\u001B[0;30;22m");
+        ANSI_CODES.put(ChatColor.DARK_BLUE, "\u001B[0;34;22m");
+        ANSI_CODES.put(ChatColor.DARK_GREEN, "\u001B[0;32;22m");
+        ANSI_CODES.put(ChatColor.DARK_AQUA, "\u001B[0;36;22m");
+        ANSI_CODES.put(ChatColor.DARK_RED, "\u001B[0;31;22m");
+        ANSI_CODES.put(ChatColor.DARK_PURPLE, "\u001B[0;35;22m");
+        ANSI_CODES.put(ChatColor.GOLD, "\u001B[0;33;22m");
+        ANSI_CODES.put(ChatColor.GRAY, "\u001B[0;37;22m");
+        ANSI_CODES.put(ChatColor.DARK_GRAY, "\u001B[0;30;1m");
+        ANSI_CODES.put(ChatColor.BLUE, "\u001B[0;34;1m");
+        ANSI_CODES.put(ChatColor.GREEN, "\u001B[0;32;1m");
+        ANSI_CODES.put(ChatColor.AQUA, "\u001B[0;36;1m");
+        ANSI_CODES.put(ChatColor.RED, "\u001B[0;31;1m");
+        ANSI_CODES.put(ChatColor.LIGHT_PURPLE, "\u001B[0;35;1m");
+        ANSI_CODES.put(ChatColor.YELLOW, "\u001B[0;33;1m");
+        ANSI_CODES.put(ChatColor.WHITE, "\u001B[0;37;1m");
+        ANSI_CODES.put(ChatColor.MAGIC, "\u001B[5m");
+        ANSI_CODES.put(ChatColor.BOLD, "\u001B[21m");
+        ANSI_CODES.put(ChatColor.STRIKETHROUGH, "\u001B[9m");
+        ANSI_CODES.put(ChatColor.UNDERLINE, "\u001B[4m");
+        ANSI_CODES.put(ChatColor.ITALIC, "\u001B[3m");
+        ANSI_CODES.put(ChatColor.RESET, ANSI_RESET);
+    }
+
+    private static volatile ConsoleRenderer consoleRenderer;
+    private static volatile ConsoleRenderer remoteConsoleRenderer;
+
+    private final boolean ansi;
+    private final boolean clickHints;
+
+    /**
+     * Constructs a new ConsoleRenderer
+     *
+     * @param ansi       True if colours should be rendered as ANSI codes, false if they should be removed
+     * @param clickHints True if the targets of click events (links, commands, etc.) should be shown after the text
+     *                   they apply to
+     */
+    public ConsoleRenderer(boolean ansi, boolean clickHints) {
+        this.ansi = ansi;
+        this.clickHints = clickHints;
+    }
+
+    /**
+     * Gets the renderer used for messages sent to the server console
+     *
+     * @return Renderer used for the console, or null if messages are sent as legacy text
+     */
+    public static ConsoleRenderer getConsoleRenderer() {
+        return consoleRenderer;
+    }
+
+    /**
+     * Sets the renderer used for messages sent to the server console
+     *
+     * @param renderer Renderer to use for the console, or null to send messages as legacy text
+     */
+    public static void setConsoleRenderer(ConsoleRenderer renderer) {
+        consoleRenderer = renderer;
+    }
+
+    /**
+     * Gets the renderer used for messages sent to RCON
+     *
+     * @return Renderer used for RCON, or null if messages are sent as legacy text
+     */
+    public static ConsoleRenderer getRemoteConsoleRenderer() {
+        return remoteConsoleRenderer;
+    }
+
+    /**
+     * Sets the renderer used for messages sent to RCON
+     *
+     * @param renderer Renderer to use for RCON, or null to send messages as legacy text
+     */
+    public static void setRemoteConsoleRenderer(ConsoleRenderer renderer) {
+        remoteConsoleRenderer = renderer;
+    }
+
+    /**
+     * Gets the renderer used for messages sent to a particular sender
+     *
+     * @param sender Sender to retrieve the renderer for
+     * @return Renderer used for the sender, or null if messages are sent to it as legacy text
+     */
+    public static ConsoleRenderer getRenderer(CommandSender sender) {
+        if (sender instanceof ConsoleCommandSender) {
+            return consoleRenderer;
+        } else if (sender instanceof RemoteConsoleCommandSender) {
+            return remoteConsoleRenderer;
+        }
+        return null;
+    }
+
+    /**
+     * Gets whether colours are rendered as ANSI codes
+     *
+     * @return True if colours are rendered as ANSI codes, false if they are removed
+     */
+    public boolean isAnsi() {
+        return ansi;
+    }
+
+    /**
+     * Gets whether the targets of click events are shown after the text they apply to
+     *
+     * @return True if click targets are shown
+     */
+    public boolean isClickHints() {
+        return clickHints;
+    }
+
+    /**
+     * Renders a message as text
+     * <p>
+     * {@link com.dsh105.powermessage.core.PowerMessage#toConsole(ConsoleRenderer)} should be preferred, as it reuses
+     * the rendered text until the message is modified
+     *
+     * @param message Message to render
+     * @return Rendered text of the message
+     */
+    public String render(PowerMessage message) {
+        StringBuilder builder = new StringBuilder(64);
+        boolean styled = false;
+        String hint = null;
+        for (PowerSnippet snippet : message) {
+            String snippetHint = clickHints ? getClickHint(snippet) : null;
+            if (hint != null && !hint.equals(snippetHint)) {
+                styled = appendHint(builder, hint, styled);
+            }
+            hint = snippetHint;
+
+            if (ansi) {
+                if (styled) {
+                    builder.append(ANSI_RESET);
+                    styled = false;
+                }
+                for (ChatColor colour : snippet.getColours()) {
+                    builder.append(ANSI_CODES.get(colour));
+                    styled = true;
+                }
+            }
+            builder.append(snippet.getText());
+        }
+        if (hint != null) {
+            styled = appendHint(builder, hint, styled);
+        }
+        if (styled) {
+            builder.append(ANSI_RESET);
+        }
+        return builder.toString();
+    }
+
+    private boolean appendHint(StringBuilder builder, String hint, boolean styled) {
+        if (styled) {
+            builder.append(ANSI_RESET);
+        }
+        builder.append(" [").append(hint).append(']');
+        return false;
+    }
+
+    private String getClickHint(PowerSnippet snippet) {
+        for (ActionEvent event : snippet.getActionEvents()) {
+            if (event.getActionType().equals("click")) {
+                String data = event.getData();
+                // Callback commands are meaningless outside of the game
+                return data == null || data.startsWith(ClickCallbackRegistry.COMMAND) ? null : data;
+            }
+        }
+        return null;
+    }
+}
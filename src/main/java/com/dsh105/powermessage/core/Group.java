@@ -21,13 +21,16 @@ import com.dsh105.commodus.ItemUtil;
 import com.dsh105.commodus.ServerUtil;
 import com.dsh105.commodus.StringUtil;
 import com.dsh105.commodus.reflection.Reflection;
+import com.dsh105.powermessage.action.ClickCallback;
+import com.dsh105.powermessage.action.ClickCallbackRegistry;
 import com.dsh105.powermessage.exception.InvalidMessageException;
+import com.dsh105.powermessage.metrics.PowerMessageMetrics;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import org.bukkit.*;
 import org.bukkit.entity.EntityType;
 import org.bukkit.inventory.ItemStack;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 public class Group implements MessageBuilder {
@@ -37,13 +40,26 @@ public class Group implements MessageBuilder {
     private int end;
 
     public Group(PowerMessage powerMessage, int start, int end) {
+        this(powerMessage, start, end, true);
+    }
+
+    public Group(PowerMessage powerMessage, int groupCount) {
+        this(powerMessage, powerMessage.groupCount() - groupCount, powerMessage.groupCount());
+    }
+
+    // Messages added with PowerMessage#append(PowerMessage) are expanded first, so that the group never needs adjusting
+    private Group(PowerMessage powerMessage, int start, int end, boolean expand) {
+        if (expand) {
+            powerMessage.expandSplices(null);
+        }
         this.powerMessage = powerMessage;
         this.start = start;
         this.end = end;
     }
 
-    public Group(PowerMessage powerMessage, int groupCount) {
-        this(powerMessage, powerMessage.getSnippets().size() - groupCount, powerMessage.getSnippets().size());
+    // Covers entries in the snippet list as they are. Only used for the current group of a message, which is adjusted whenever the message is expanded
+    protected static Group ofSegments(PowerMessage powerMessage, int start, int end) {
+        return new Group(powerMessage, start, end, false);
     }
 
     public int getStart() {
@@ -54,14 +70,23 @@ public class Group implements MessageBuilder {
         return end;
     }
 
+    // Called when the snippets of the message are rearranged, with the new position of each old index
+    protected void reposition(int[] positions) {
+        this.start = positions[start];
+        this.end = positions[end];
+    }
+
+    // Appended messages must be expanded before the snippets they contain can be modified
+    private void prepareEdit() {
+        powerMessage.expandSplices(this);
+    }
+
     protected List<PowerSnippet> getSnippets() {
-        ArrayList<PowerSnippet> snippets = new ArrayList<>();
-        for (int i = start; i < end; i++) {
-            snippets.add(powerMessage.getSnippet(i));
-        }
-        return Collections.unmodifiableList(snippets);
+        prepareEdit();
+        return powerMessage.expandedSnippets().subList(start, end);
     }
 
+
     public PowerMessage exit() {
         return powerMessage;
     }
@@ -77,88 +102,146 @@ public class Group implements MessageBuilder {
 
     @Override
     public Group edit(String snippetContent) {
-        for (PowerSnippet snippet : getSnippets()) {
-            snippet.setText(snippetContent);
+        prepareEdit();
+        for (int i = start; i < end; i++) {
+            powerMessage.getSnippet(i).setText(snippetContent);
         }
         return this;
     }
 
     @Override
     public Group colour(ChatColor... colours) {
-        for (PowerSnippet snippet : getSnippets()) {
-            snippet.withColour(colours);
+        prepareEdit();
+        for (int i = start; i < end; i++) {
+            powerMessage.getSnippet(i).withColour(colours);
         }
         return this;
     }
 
     @Override
     public Group file(String relativePath) {
-        for (PowerSnippet snippet : getSnippets()) {
-            snippet.withEvent("click", "open_file", relativePath);
+        prepareEdit();
+        for (int i = start; i < end; i++) {
+            powerMessage.getSnippet(i).withEvent("click", "open_file", relativePath);
         }
         return this;
     }
 
     @Override
     public Group link(String urlLink) {
-        for (PowerSnippet snippet : getSnippets()) {
-            snippet.withEvent("click", "open_url", urlLink);
+        prepareEdit();
+        for (int i = start; i < end; i++) {
+            powerMessage.getSnippet(i).withEvent("click", "open_url", urlLink);
+        }
+        return this;
+    }
+
+    @Override
+    public Group link(Supplier<String> urlLink) {
+        Supplier<String> memoized = Suppliers.memoize(urlLink);
+        prepareEdit();
+        for (int i = start; i < end; i++) {
+            powerMessage.getSnippet(i).withEvent("click", "open_url", memoized);
         }
         return this;
     }
 
     @Override
     public Group suggest(String commandToSuggest) {
-        for (PowerSnippet snippet : getSnippets()) {
-            snippet.withEvent("click", "suggest_command", commandToSuggest);
+        prepareEdit();
+        for (int i = start; i < end; i++) {
+            powerMessage.getSnippet(i).withEvent("click", "suggest_command", commandToSuggest);
+        }
+        return this;
+    }
+
+    @Override
+    public Group suggest(Supplier<String> commandToSuggest) {
+        Supplier<String> memoized = Suppliers.memoize(commandToSuggest);
+        prepareEdit();
+        for (int i = start; i < end; i++) {
+            powerMessage.getSnippet(i).withEvent("click", "suggest_command", memoized);
         }
         return this;
     }
 
     @Override
     public Group perform(String commandToPerform) {
-        for (PowerSnippet snippet : getSnippets()) {
-            snippet.withEvent("click", "run_command", commandToPerform);
+        prepareEdit();
+        for (int i = start; i < end; i++) {
+            powerMessage.getSnippet(i).withEvent("click", "run_command", commandToPerform);
         }
         return this;
     }
 
+    @Override
+    public Group perform(Supplier<String> commandToPerform) {
+        Supplier<String> memoized = Suppliers.memoize(commandToPerform);
+        prepareEdit();
+        for (int i = start; i < end; i++) {
+            powerMessage.getSnippet(i).withEvent("click", "run_command", memoized);
+        }
+        return this;
+    }
+
+    @Override
+    public Group onClick(ClickCallback callback) {
+        return perform(ClickCallbackRegistry.getDefault().register(callback));
+    }
+
     @Override
     public Group tooltip(String... content) {
         if (content == null || content.length <= 0) {
             throw new InvalidMessageException("Content cannot be empty");
         }
 
-        for (PowerSnippet snippet : getSnippets()) {
-            snippet.withEvent("hover", "show_text", content.length == 1 ? content[0] : StringUtil.combineArray(0, "\n", content));
+        String text = content.length == 1 ? content[0] : StringUtil.combineArray(0, "\n", content);
+        prepareEdit();
+        for (int i = start; i < end; i++) {
+            powerMessage.getSnippet(i).withEvent("hover", "show_text", text);
+        }
+        return this;
+    }
+
+    @Override
+    public Group tooltip(Supplier<String> content) {
+        // Shared by every snippet in the group, so that it is only called once
+        Supplier<String> memoized = Suppliers.memoize(content);
+        prepareEdit();
+        for (int i = start; i < end; i++) {
+            powerMessage.getSnippet(i).withEvent("hover", "show_text", memoized);
         }
         return this;
     }
 
     @Override
     public Group tooltip(PowerMessage powerMessage) {
-        if (powerMessage.getContent() == null || powerMessage.getContent().length() <= 0) {
+        String content = powerMessage.getContent();
+        if (content == null || content.length() <= 0) {
             throw new InvalidMessageException("Content cannot be empty");
         }
 
-        for (PowerSnippet snippet : getSnippets()) {
-            snippet.withEvent("hover", "show_text", powerMessage.getContent());
+        prepareEdit();
+        for (int i = start; i < end; i++) {
+            this.powerMessage.getSnippet(i).withEvent("hover", "show_text", content);
         }
         return this;
     }
 
     @Override
     public Group achievementTooltip(String achievementName) {
-        for (PowerSnippet snippet : getSnippets()) {
-            snippet.withEvent("hover", "show_achievement", "achievement." + achievementName);
+        prepareEdit();
+        for (int i = start; i < end; i++) {
+            powerMessage.getSnippet(i).withEvent("hover", "show_achievement", "achievement." + achievementName);
         }
         return this;
     }
 
     @Override
     public Group itemTooltip(String itemJson) {
-        for (PowerSnippet snippet : getSnippets()) {
-            snippet.withEvent("hover", "show_item", itemJson);
+        prepareEdit();
+        for (int i = start; i < end; i++) {
+            powerMessage.getSnippet(i).withEvent("hover", "show_item", itemJson);
         }
         return this;
     }
@@ -170,15 +253,20 @@ public class Group implements MessageBuilder {
 
     @Override
     public Group itemTooltip(ItemStack itemStack) {
+        long start = reflectionStart();
         Object nmsCopy = Reflection.invokeStatic(Reflection.getMethod(Reflection.getOBCClass("inventory.CraftItemStack"), "asNMSCopy", ItemStack.class), itemStack);
         Object nbtData = Reflection.invoke(Reflection.getMethod(nmsCopy.getClass(), "save", Reflection.getNMSClass("NBTTagCompound")), Reflection.newInstance(Reflection.getConstructor(Reflection.getNMSClass("NBTTagCompound"))));
+        reflectionEnd(start);
         return itemTooltip(nbtData.toString());
     }
 
     @Override
     public Group achievementTooltip(Achievement which) {
+        long start = reflectionStart();
         Object achievement = Reflection.invokeStatic(Reflection.getMethod(Reflection.getOBCClass("CraftStatistic"), "getNMSAchievement", Achievement.class), which);
-        return achievementTooltip((String) Reflection.getFieldValue(Reflection.getNMSClass("Achievement"), achievement, "name"));
+        String name = (String) Reflection.getFieldValue(Reflection.getNMSClass("Achievement"), achievement, "name");
+        reflectionEnd(start);
+        return achievementTooltip(name);
     }
 
     @Override
@@ -187,8 +275,11 @@ public class Group implements MessageBuilder {
             throw new IllegalArgumentException("That statistic requires an additional " + which.getType() + " parameter!");
         }
 
+        long start = reflectionStart();
         Object statistic = Reflection.invokeStatic(Reflection.getMethod(Reflection.getOBCClass("CraftStatistic"), "getNMSStatistic", Statistic.class), which);
-        return achievementTooltip((String) Reflection.getFieldValue(Reflection.getNMSClass("Statistic"), statistic, "name"));
+        String name = (String) Reflection.getFieldValue(Reflection.getNMSClass("Statistic"), statistic, "name");
+        reflectionEnd(start);
+        return achievementTooltip(name);
     }
 
     @Override
@@ -201,8 +292,11 @@ public class Group implements MessageBuilder {
             throw new IllegalArgumentException("Wrong parameter type for that statistic - needs " + which.getType() + "!");
         }
 
+        long start = reflectionStart();
         Object statistic = Reflection.invokeStatic(Reflection.getMethod(Reflection.getOBCClass("CraftStatistic"), "getMaterialStatistic", Statistic.class, Material.class), which, item);
-        return achievementTooltip((String) Reflection.getFieldValue(Reflection.getNMSClass("Statistic"), statistic, "name"));
+        String name = (String) Reflection.getFieldValue(Reflection.getNMSClass("Statistic"), statistic, "name");
+        reflectionEnd(start);
+        return achievementTooltip(name);
     }
 
     @Override
@@ -215,7 +309,20 @@ public class Group implements MessageBuilder {
             throw new IllegalArgumentException("Wrong parameter type for that statistic - needs " + which.getType() + "!");
         }
 
+        long start = reflectionStart();
         Object statistic = Reflection.invokeStatic(Reflection.getMethod(Reflection.getOBCClass("CraftStatistic"), "getEntityStatistic", Statistic.class, EntityType.class), which, entity);
-        return achievementTooltip((String) Reflection.getFieldValue(Reflection.getNMSClass("Statistic"), statistic, "name"));
+        String name = (String) Reflection.getFieldValue(Reflection.getNMSClass("Statistic"), statistic, "name");
+        reflectionEnd(start);
+        return achievementTooltip(name);
+    }
+
+    private static long reflectionStart() {
+        return PowerMessageMetrics.isEnabled() ? System.nanoTime() : Long.MIN_VALUE;
+    }
+
+    private static void reflectionEnd(long start) {
+        if (start != Long.MIN_VALUE) {
+            PowerMessageMetrics.recordReflection(System.nanoTime() - start);
+        }
     }
 }
\ No newline at end of file
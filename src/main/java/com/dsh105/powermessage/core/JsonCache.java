@@ -0,0 +1,264 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dsh105.powermessage.core;
+
+import com.dsh105.powermessage.exception.InvalidMessageException;
+import com.dsh105.powermessage.metrics.StripedCounter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An optional cache that shares the converted JSON and chat packet of messages with identical content, so that
+ * separate {@link com.dsh105.powermessage.core.PowerMessage}s built by different plugins are only converted once
+ * <p>
+ * Messages are looked up by their snippets rather than their JSON. The least recently used entries are evicted once
+ * the cache reaches its maximum size. Caching is disabled by default and can be enabled with the
+ * {@code powermessage.jsoncache} system property or {@link #setEnabled(boolean)}. The maximum size defaults to the
+ * {@code powermessage.jsoncache.size} system property, or 1024 entries if it is not set
+ */
+public final class JsonCache {
+
+    private static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    private static final StripedCounter LOOKUPS = new StripedCounter();
+    private static final StripedCounter HITS = new StripedCounter();
+    private static final StripedCounter EVICTIONS = new StripedCounter();
+
+    private static volatile boolean enabled = Boolean.getBoolean("powermessage.jsoncache");
+    private static volatile int maximumSize = Integer.getInteger("powermessage.jsoncache.size", DEFAULT_MAXIMUM_SIZE);
+
+    private static final Map<Key, Entry> ENTRIES = new LinkedHashMap<Key, Entry>(16, 0.75F, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() > maximumSize) {
+                EVICTIONS.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private JsonCache() {
+    }
+
+    /**
+     * Gets whether converted messages are currently being cached
+     *
+     * @return True if converted messages are being cached
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether converted messages should be cached
+     *
+     * @param enabled True to cache converted messages
+     */
+    public static void setEnabled(boolean enabled) {
+        JsonCache.enabled = enabled;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    /**
+     * Gets the maximum number of messages held in the cache
+     *
+     * @return Maximum number of cached messages
+     */
+    public static int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Sets the maximum number of messages held in the cache
+     * <p>
+     * If the cache is currently larger than this, the least recently used entries are evicted as new messages are
+     * added
+     *
+     * @param maximumSize Maximum number of cached messages
+     */
+    public static void setMaximumSize(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be at least 1");
+        }
+        JsonCache.maximumSize = maximumSize;
+    }
+
+    /**
+     * Removes all messages from the cache
+     */
+    public static void clear() {
+        synchronized (ENTRIES) {
+            ENTRIES.clear();
+        }
+    }
+
+    /**
+     * Gets the number of messages currently held in the cache
+     *
+     * @return Number of cached messages
+     */
+    public static int size() {
+        synchronized (ENTRIES) {
+            return ENTRIES.size();
+        }
+    }
+
+    /**
+     * Gets the number of messages looked up in the cache
+     *
+     * @return Number of lookups
+     */
+    public static long getLookups() {
+        return LOOKUPS.sum();
+    }
+
+    /**
+     * Gets the number of messages that were found in the cache
+     *
+     * @return Number of hits
+     */
+    public static long getHits() {
+        return HITS.sum();
+    }
+
+    /**
+     * Gets the number of messages evicted from the cache to keep it within its maximum size
+     *
+     * @return Number of evictions
+     */
+    public static long getEvictions() {
+        return EVICTIONS.sum();
+    }
+
+    /**
+     * Gets the cached entry for a message, converting and adding it if an identical message is not already cached
+     *
+     * @param message Message to look up
+     * @return Cached entry representing the message
+     */
+    protected static Entry get(PowerMessage message) {
+        // Appended messages are compared by their own converted JSON, so they do not need to be expanded
+        List<PowerSnippet> snippets = message.segments();
+        // Hashed outside of the lock, as this may retrieve the data of events for the first time
+        Key probe = new Key(snippets, snippets.hashCode());
+        LOOKUPS.increment();
+        synchronized (ENTRIES) {
+            Entry entry = ENTRIES.get(probe);
+            if (entry != null) {
+                HITS.increment();
+                return entry;
+            }
+        }
+
+        // Converted outside of the lock; if another thread adds the same message first, its entry is used instead
+        Entry created = new Entry(message.appendJson(new StringBuilder(64)).toString());
+        Key key = new Key(copy(snippets), probe.hash);
+        synchronized (ENTRIES) {
+            Entry entry = ENTRIES.get(key);
+            if (entry != null) {
+                return entry;
+            }
+            ENTRIES.put(key, created);
+        }
+        return created;
+    }
+
+    // Cached keys must not change when the message they were taken from is modified; snippets copy their events too
+    private static List<PowerSnippet> copy(List<PowerSnippet> snippets) {
+        ArrayList<PowerSnippet> copy = new ArrayList<>(snippets.size());
+        for (PowerSnippet snippet : snippets) {
+            try {
+                copy.add((PowerSnippet) snippet.clone());
+            } catch (CloneNotSupportedException e) {
+                throw new InvalidMessageException("Failed to copy snippet", e);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Represents the shared conversion of a message held in the cache
+     */
+    public static class Entry {
+
+        private final String json;
+        private volatile PreparedPacket packet;
+
+        protected Entry(String json) {
+            this.json = json;
+        }
+
+        /**
+         * Gets the raw JSON of the cached message
+         *
+         * @return Raw JSON to represent the message
+         */
+        public String getJson() {
+            return json;
+        }
+
+        /**
+         * Gets the chat packet of the cached message, creating it on first use or after the dialect has changed
+         *
+         * @return A chat packet representing the message
+         */
+        public Object getPacket() {
+            PreparedPacket previous = packet;
+            PreparedPacket result = PreparedPacket.prepare(previous, json);
+            if (result != previous) {
+                packet = result;
+            }
+            return result.getPacket();
+        }
+    }
+
+    private static class Key {
+
+        private final List<PowerSnippet> snippets;
+        private final int hash;
+
+        public Key(List<PowerSnippet> snippets, int hash) {
+            this.snippets = snippets;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && snippets.equals(other.snippets);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
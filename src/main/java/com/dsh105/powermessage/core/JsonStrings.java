@@ -0,0 +1,97 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.core;
+
+/**
+ * Utilities for writing JSON directly to a {@link java.lang.StringBuilder}
+ * <p>
+ * Strings are escaped in exactly the same way as {@link org.bukkit.craftbukkit.libs.com.google.gson.stream.JsonWriter}
+ * so that both produce identical output
+ */
+public final class JsonStrings {
+
+    private static final String[] REPLACEMENT_CHARS = new String[128];
+
+    static {
+        for (int i = 0; i <= 0x1f; i++) {
+            REPLACEMENT_CHARS[i] = String.format("\\u%04x", i);
+        }
+        REPLACEMENT_CHARS['"'] = "\\\"";
+        REPLACEMENT_CHARS['\\'] = "\\\\";
+        REPLACEMENT_CHARS['\t'] = "\\t";
+        REPLACEMENT_CHARS['\b'] = "\\b";
+        REPLACEMENT_CHARS['\n'] = "\\n";
+        REPLACEMENT_CHARS['\r'] = "\\r";
+        REPLACEMENT_CHARS['\f'] = "\\f";
+    }
+
+    private JsonStrings() {
+    }
+
+    /**
+     * Appends a string to a builder as a quoted and escaped JSON value
+     *
+     * @param builder Builder to append to
+     * @param value   String to append. A null value is appended as {@code null}
+     * @return The given builder
+     */
+    public static StringBuilder appendQuoted(StringBuilder builder, String value) {
+        if (value == null) {
+            return builder.append("null");
+        }
+
+        builder.append('"');
+        int last = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            if (c < 128) {
+                replacement = REPLACEMENT_CHARS[c];
+                if (replacement == null) {
+                    continue;
+                }
+            } else if (c == '\u2028') {
+                replacement = "\\u2028";
+            } else if (c == '\u2029') {
+                replacement = "\\u2029";
+            } else {
+                continue;
+            }
+            if (last < i) {
+                builder.append(value, last, i);
+            }
+            builder.append(replacement);
+            last = i + 1;
+        }
+        if (last < length) {
+            builder.append(value, last, length);
+        }
+        return builder.append('"');
+    }
+
+    /**
+     * Converts a string to a quoted and escaped JSON value
+     *
+     * @param value String to convert
+     * @return The quoted value
+     */
+    public static String quote(String value) {
+        return appendQuoted(new StringBuilder(value == null ? 4 : value.length() + 2), value).toString();
+    }
+}
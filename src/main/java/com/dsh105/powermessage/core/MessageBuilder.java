@@ -17,6 +17,8 @@
 
 package com.dsh105.powermessage.core;
 
+import com.dsh105.powermessage.action.ClickCallback;
+import com.google.common.base.Supplier;
 import org.bukkit.Achievement;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
@@ -63,6 +65,14 @@ public interface MessageBuilder {
      */
     MessageBuilder link(String urlLink);
 
+    /**
+     * Adds a link event to a PowerMessage, with a link that is retrieved when the message is first converted
+     *
+     * @param urlLink Supplier of the URL link to open
+     * @return This object
+     */
+    MessageBuilder link(Supplier<String> urlLink);
+
     /**
      * Adds a suggest event to a PowerMessage
      * <p>
@@ -73,6 +83,14 @@ public interface MessageBuilder {
      */
     MessageBuilder suggest(String commandToSuggest);
 
+    /**
+     * Adds a suggest event to a PowerMessage, with a command that is retrieved when the message is first converted
+     *
+     * @param commandToSuggest Supplier of the command to suggest when clicked
+     * @return This object
+     */
+    MessageBuilder suggest(Supplier<String> commandToSuggest);
+
     /**
      * Adds a perform event to a PowerMessage
      * <p>
@@ -83,6 +101,25 @@ public interface MessageBuilder {
      */
     MessageBuilder perform(String commandToPerform);
 
+    /**
+     * Adds a perform event to a PowerMessage, with a command that is retrieved when the message is first converted
+     *
+     * @param commandToPerform Supplier of the command to perform when clicked
+     * @return This object
+     */
+    MessageBuilder perform(Supplier<String> commandToPerform);
+
+    /**
+     * Adds a callback event to a PowerMessage
+     * <p>
+     * Runs the given callback for the player that clicked. Callbacks expire after a while; see
+     * {@link com.dsh105.powermessage.action.ClickCallbackRegistry}
+     *
+     * @param callback Callback to run when clicked
+     * @return This object
+     */
+    MessageBuilder onClick(ClickCallback callback);
+
     /**
      * Adds a tooltip to a PowerMessage
      * <p>
@@ -93,6 +130,16 @@ public interface MessageBuilder {
      */
     MessageBuilder tooltip(String... content);
 
+    /**
+     * Adds a tooltip to a PowerMessage, with content that is retrieved when the message is first converted
+     * <p>
+     * Useful for tooltips that are expensive to build, as the supplier is never called if the message is not sent
+     *
+     * @param content Supplier of the message to show when hovered over
+     * @return This object
+     */
+    MessageBuilder tooltip(Supplier<String> content);
+
     /**
      * Adds a tooltip to a PowerMessage
      * <p>
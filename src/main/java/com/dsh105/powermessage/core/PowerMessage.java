@@ -17,11 +17,21 @@
 
 package com.dsh105.powermessage.core;
 
-import com.dsh105.commodus.ServerUtil;
 import com.dsh105.commodus.StringUtil;
 import com.dsh105.commodus.paginator.Pageable;
-import com.dsh105.commodus.reflection.Reflection;
+import com.dsh105.powermessage.action.ClickCallback;
+import com.dsh105.powermessage.console.ConsoleRenderer;
+import com.dsh105.powermessage.dialect.ChatDialect;
+import com.dsh105.powermessage.dialect.ChatDialects;
 import com.dsh105.powermessage.exception.InvalidMessageException;
+import com.dsh105.powermessage.metrics.MessageTrace;
+import com.dsh105.powermessage.metrics.PowerMessageMetrics;
+import com.dsh105.powermessage.metrics.TraceEvent;
+import com.dsh105.powermessage.send.AsyncSender;
+import com.dsh105.powermessage.send.ChatCoalescer;
+import com.dsh105.powermessage.send.SendResult;
+import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.ListenableFuture;
 import org.bukkit.Achievement;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
@@ -35,8 +45,6 @@ import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
 import java.io.IOException;
-import java.io.StringWriter;
-import java.lang.reflect.Method;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -49,40 +57,29 @@ public class PowerMessage implements MessageBuilder, Pageable, JsonWritable, Clo
     protected static final Pattern COLOUR_PATTERN = Pattern.compile(ChatColor.COLOR_CHAR + "([0-9A-FK-OR])", Pattern.CASE_INSENSITIVE);
 
     private static final String SERIALIZED_SNIPPETS = "snippets";
-
-    private static Class<?> CHAT_PACKET_CLASS;
-    private static Method CHAT_FROM_JSON;
+    private static final String SERIALIZED_JSON = "json";
+    private static final String SERIALIZED_LEGACY = "legacy";
 
     static {
         ConfigurationSerialization.registerClass(PowerMessage.class);
-
-        for (Method method : Reflection.getNMSClass("ChatSerializer").getDeclaredMethods()) {
-            if (method.getReturnType().equals(Reflection.getNMSClass("IChatBaseComponent")) && method.getParameterTypes().length == 1 && method.getParameterTypes()[0].equals(String.class)) {
-                CHAT_FROM_JSON = method;
-                break;
-            }
-        }
-
-        ArrayList<Method> packetMethods = new ArrayList<>();
-        for (Method method : Reflection.getNMSClass("EnumProtocol").getDeclaredMethods()) {
-            if (Map.class.isAssignableFrom(method.getReturnType()) && method.getParameterTypes().length == 0) {
-                method.setAccessible(true);
-                packetMethods.add(method);
-            }
-        }
-        CHAT_PACKET_CLASS = (Class<?>) ((Map) Reflection.invoke(packetMethods.get(0), Reflection.getNMSClass("EnumProtocol").getEnumConstants()[1])).get(0x02);
-
-        try {
-            CHAT_PACKET_CLASS.getConstructor(Reflection.getNMSClass("IChatBaseComponent"));
-        } catch (NoSuchMethodException e) {
-            // This is more of a backup
-            CHAT_PACKET_CLASS = Reflection.getNMSClass("PacketPlayOutChat");
-        }
     }
 
     private ArrayList<PowerSnippet> snippets = new ArrayList<>();
+    // Snippets of a deserialized message that have not been built yet
+    private List<?> serializedSnippets;
+    // Clones share snippets until one of them is modified
+    private boolean snippetListShared;
+    private BitSet sharedSnippets = new BitSet();
+    // Number of messages appended with append(PowerMessage) that have not been expanded into snippets yet
+    private int splicedCount;
     private String rawJson;
+    private JsonCache.Entry cacheEntry;
+    private String rawContent;
     private boolean convertedToJson;
+    private boolean convertedToContent;
+    private String rawConsole;
+    private ConsoleRenderer consoleRenderer;
+    private boolean convertedToConsole;
     private Group currentGroup;
 
     /**
@@ -102,14 +99,43 @@ public class PowerMessage implements MessageBuilder, Pageable, JsonWritable, Clo
 
     @Override
     public String getContent() {
-        StringBuilder result = new StringBuilder();
-        for (PowerSnippet snippet : getSnippets()) {
+        if (convertedToContent && rawContent != null) {
+            return rawContent;
+        }
+
+        inflate();
+        StringBuilder result = new StringBuilder(rawContent == null ? 32 : rawContent.length());
+        for (int i = 0; i < snippets.size(); i++) {
+            PowerSnippet snippet = snippets.get(i);
+            if (snippet instanceof SplicedSnippet) {
+                result.append(((SplicedSnippet) snippet).getMessage().getContent());
+                continue;
+            }
             for (ChatColor colour : snippet.getColours()) {
                 result.append(colour);
             }
             result.append(snippet.getText());
         }
-        return result.toString();
+        rawContent = result.toString();
+        convertedToContent = true;
+        return rawContent;
+    }
+
+    /**
+     * Renders this message as text for the server console or RCON
+     * <p>
+     * The rendered text is reused until the message is next modified
+     *
+     * @param renderer Renderer to use
+     * @return Text representing this message
+     */
+    public String toConsole(ConsoleRenderer renderer) {
+        if (!convertedToConsole || renderer != consoleRenderer) {
+            rawConsole = renderer.render(this);
+            consoleRenderer = renderer;
+            convertedToConsole = true;
+        }
+        return rawConsole;
     }
 
     /**
@@ -123,7 +149,8 @@ public class PowerMessage implements MessageBuilder, Pageable, JsonWritable, Clo
         if (sender instanceof Player) {
             send((Player) sender);
         } else {
-            sender.sendMessage(getContent());
+            ConsoleRenderer renderer = ConsoleRenderer.getRenderer(sender);
+            sender.sendMessage(renderer == null ? getContent() : toConsole(renderer));
         }
         return this;
     }
@@ -148,40 +175,106 @@ public class PowerMessage implements MessageBuilder, Pageable, JsonWritable, Clo
      * @return This object
      */
     public PowerMessage send(Player player) {
-        if (ServerUtil.getVersion().isCompatible("1.7")) {
-            Object chatComponent = Reflection.invokeStatic(CHAT_FROM_JSON, toJson());
-            Object packet = Reflection.newInstance(Reflection.getConstructor(CHAT_PACKET_CLASS, Reflection.getNMSClass("IChatBaseComponent")), chatComponent);
-            Object handle = Reflection.invoke(Reflection.getMethod(player.getClass(), "getHandle"), player);
-            Object connection = Reflection.getFieldValue(handle, "playerConnection");
-            Reflection.invoke(Reflection.getMethod(connection.getClass(), "sendPacket", Reflection.getNMSClass("Packet")), connection, packet);
-        } else {
-            player.sendMessage(getContent());
-        }
-        return this;
+        return send(new Player[]{player});
     }
 
     /**
      * Sends this message to a group of Bukkit {@link org.bukkit.entity.Player}s
+     * <p>
+     * The message is only converted once, regardless of the number of players it is sent to
      *
      * @param players Whom to send the message to
      * @return This object
      */
     public PowerMessage send(Player... players) {
+        if (players.length == 0) {
+            return this;
+        }
+
+        boolean metrics = PowerMessageMetrics.isEnabled();
+        boolean traced = MessageTrace.isActive();
+        long start = metrics || traced ? System.nanoTime() : 0L;
+        ChatDialect dialect = ChatDialects.getCurrent();
+        Object content = dialect.isJsonSupported() ? toPacket() : dialect.prepare(this);
         for (Player player : players) {
-            send(player);
+            ChatCoalescer.flushPending(player);
+            dialect.write(player, content);
+        }
+        if (metrics) {
+            PowerMessageMetrics.recordSend(System.nanoTime() - start, players.length);
+        }
+        if (traced) {
+            MessageTrace.emit(TraceEvent.Type.SEND, start, segmentCount(), rawJson == null ? -1 : rawJson.length(), players.length);
         }
         return this;
     }
 
+    /**
+     * Sends this message to a group of Bukkit {@link org.bukkit.entity.Player}s without blocking the calling thread
+     * <p>
+     * Conversion of the message is performed by the default {@link com.dsh105.powermessage.send.AsyncSender}. The
+     * message should not be modified until the returned future has completed
+     *
+     * @param players Whom to send the message to
+     * @return A future that completes once the message has been written to all players
+     */
+    public ListenableFuture<SendResult> sendAsync(Player... players) {
+        return AsyncSender.getDefault().send(this, players);
+    }
+
+    /**
+     * Converts a PowerMessage to an NMS chat packet, ready to be sent to any number of players
+     * <p>
+     * Only supported on servers compatible with JSON chat messages (1.7 and above)
+     *
+     * @return A chat packet representing this PowerMessage
+     */
+    public Object toPacket() {
+        String json = toJson();
+        JsonCache.Entry entry = cacheEntry;
+        return entry != null ? entry.getPacket() : createPacket(json);
+    }
+
+    /**
+     * Converts raw JSON to an NMS chat packet, ready to be sent to any number of players
+     * <p>
+     * Only supported on servers compatible with JSON chat messages (1.7 and above)
+     *
+     * @param json Raw JSON to convert
+     * @return A chat packet representing the given JSON
+     */
+    public static Object createPacket(String json) {
+        return ChatDialects.getCurrent().prepareJson(json);
+    }
+
+    /**
+     * Writes a chat packet created by {@link #toPacket()} to a player's connection
+     *
+     * @param player Player to send the packet to
+     * @param packet Packet to send
+     */
+    public static void sendPacket(Player player, Object packet) {
+        ChatCoalescer.flushPending(player);
+        ChatDialects.getCurrent().write(player, packet);
+    }
+
     @Override
     public String getText() {
         return currentGroup.getText();
     }
 
     public PowerMessage clear() {
-        this.snippets.clear();
+        this.serializedSnippets = null;
+        this.splicedCount = 0;
+        if (snippetListShared) {
+            this.snippets = new ArrayList<>();
+            this.snippetListShared = false;
+        } else {
+            this.snippets.clear();
+        }
+        this.sharedSnippets.clear();
         currentGroup = null;
-        convertedToJson = false;
+        invalidate();
         return this;
     }
 
@@ -209,24 +302,54 @@ public class PowerMessage implements MessageBuilder, Pageable, JsonWritable, Clo
         return this;
     }
 
+    @Override
+    public PowerMessage link(Supplier<String> urlLink) {
+        currentGroup.link(urlLink);
+        return this;
+    }
+
     @Override
     public PowerMessage suggest(String commandToSuggest) {
         currentGroup.suggest(commandToSuggest);
         return this;
     }
 
+    @Override
+    public PowerMessage suggest(Supplier<String> commandToSuggest) {
+        currentGroup.suggest(commandToSuggest);
+        return this;
+    }
+
     @Override
     public PowerMessage perform(String commandToPerform) {
         currentGroup.perform(commandToPerform);
         return this;
     }
 
+    @Override
+    public PowerMessage perform(Supplier<String> commandToPerform) {
+        currentGroup.perform(commandToPerform);
+        return this;
+    }
+
+    @Override
+    public PowerMessage onClick(ClickCallback callback) {
+        currentGroup.onClick(callback);
+        return this;
+    }
+
     @Override
     public PowerMessage tooltip(String... content) {
         currentGroup.tooltip(content);
         return this;
     }
 
+    @Override
+    public PowerMessage tooltip(Supplier<String> content) {
+        currentGroup.tooltip(content);
+        return this;
+    }
+
     @Override
     public PowerMessage tooltip(PowerMessage powerMessage) {
         currentGroup.tooltip(powerMessage);
@@ -288,7 +411,12 @@ public class PowerMessage implements MessageBuilder, Pageable, JsonWritable, Clo
      * @return This object
      */
     public PowerMessage then(String snippetContent) {
-        String content = ChatColor.translateAlternateColorCodes('&', snippetContent);
+        String content = snippetContent.indexOf('&') < 0 ? snippetContent : ChatColor.translateAlternateColorCodes('&', snippetContent);
+        if (content.length() > 0 && content.indexOf(ChatColor.COLOR_CHAR) < 0) {
+            // Plain text is added as a single snippet
+            return then(new PowerSnippet(content));
+        }
+
         int groupCount = 0;
         if (content.length() > 0) {
             ArrayList<ChatColor> colours = new ArrayList<>();
@@ -296,11 +424,11 @@ public class PowerMessage implements MessageBuilder, Pageable, JsonWritable, Clo
             int lastEnd = 0;
             while (colourMatcher.find()) {
                 if (colourMatcher.start() > lastEnd) {
-                    then(new PowerSnippet(content.substring(lastEnd, colourMatcher.start()))).colour(colours.toArray(new ChatColor[0]));
+                    then(new PowerSnippet(content.substring(lastEnd, colourMatcher.start()))).colour(colours.toArray(new ChatColor[colours.size()]));
                     groupCount++;
                 }
 
-                ChatColor colour = ChatColor.getByChar(colourMatcher.group(1));
+                ChatColor colour = ChatColor.getByChar(content.charAt(colourMatcher.start(1)));
                 if (colour == ChatColor.RESET) {
                     colours.clear();
                 } else {
@@ -308,12 +436,12 @@ public class PowerMessage implements MessageBuilder, Pageable, JsonWritable, Clo
                 }
                 lastEnd = colourMatcher.end();
             }
-            if (lastEnd < (content.length() - 1)) {
-                then(new PowerSnippet(content.substring(lastEnd, content.length()))).colour(colours.toArray(new ChatColor[0]));
+            if (lastEnd < content.length()) {
+                then(new PowerSnippet(content.substring(lastEnd, content.length()))).colour(colours.toArray(new ChatColor[colours.size()]));
                 groupCount++;
             }
             // Group everything together so that changes can be applied to all of them
-            group(groupCount);
+            groupLast(groupCount);
         }
         return this;
     }
@@ -335,30 +463,113 @@ public class PowerMessage implements MessageBuilder, Pageable, JsonWritable, Clo
      * @return This object
      */
     public PowerMessage then(PowerSnippet snippet) {
+        ownSnippetList();
         snippets.add(snippet);
-        group(1);
+        groupLast(1);
         return this;
     }
 
+    /**
+     * Appends another message to the end of a PowerMessage
+     * <p>
+     * The JSON of the appended message is reused as-is, rather than converted again as part of this message. Its
+     * snippets are only copied into this message once they are inspected or modified, for example by adding colours
+     * or events to the group that contains them. Later changes to the appended message do not affect this message
+     *
+     * @param powerMessage Message to append
+     * @return This object
+     */
+    public PowerMessage append(PowerMessage powerMessage) {
+        powerMessage.toJson();
+        PowerMessage copy;
+        try {
+            // Shares the converted JSON of the original
+            copy = (PowerMessage) powerMessage.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new InvalidMessageException("Failed to copy message", e);
+        }
+        then(new SplicedSnippet(copy));
+        this.splicedCount++;
+        return this;
+    }
+
+    /**
+     * Creates a new PowerMessage made up of several others
+     * <p>
+     * The JSON of each message is reused as-is, as in {@link #append(PowerMessage)}
+     *
+     * @param powerMessages Messages to combine
+     * @return A new PowerMessage containing each of the given messages in order
+     */
+    public static PowerMessage concat(PowerMessage... powerMessages) {
+        PowerMessage result = new PowerMessage();
+        for (PowerMessage powerMessage : powerMessages) {
+            result.append(powerMessage);
+        }
+        return result;
+    }
+
     /**
      * Gets a copy of the snippets in a PowerMessage
      * <p>
-     * Editing this list will not change the content of the original PowerMessage
+     * Each snippet is copied, so editing this list or the snippets in it will not change the content of the original
+     * PowerMessage. Use {@link #getSnippet(int)} to modify a snippet in place
      *
      * @return List of snippets in a PowerMessage
      */
     public List<PowerSnippet> getSnippets() {
+        List<PowerSnippet> snippets = expandedSnippets();
+        ArrayList<PowerSnippet> copies = new ArrayList<>(snippets.size());
+        for (PowerSnippet snippet : snippets) {
+            try {
+                copies.add((PowerSnippet) snippet.clone());
+            } catch (CloneNotSupportedException e) {
+                throw new InvalidMessageException("Failed to copy snippet", e);
+            }
+        }
+        return copies;
+    }
+
+    // The snippets themselves, for reading within this package without copying them
+    protected List<PowerSnippet> expandedSnippets() {
+        inflate();
+        expandSplices(null);
         return Collections.unmodifiableList(snippets);
     }
 
     /**
-     * Gets a snippet at a particular index
+     * Gets a snippet at a particular index so that it can be modified
+     * <p>
+     * If the snippet is shared with a clone of this PowerMessage, it is copied first so that it can be safely modified.
+     * Any JSON or legacy text converted previously is discarded, as the snippet may change after it is returned
      *
      * @param index Index to retrieve
      * @return A particular snippet in a PowerMessage
      */
     public PowerSnippet getSnippet(int index) {
-        return snippets.get(index);
+        inflate();
+        expandSplices(null);
+        invalidate();
+        PowerSnippet snippet = snippets.get(index);
+        if (sharedSnippets.get(index)) {
+            ownSnippetList();
+            try {
+                snippet = (PowerSnippet) snippet.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new InvalidMessageException("Failed to copy snippet", e);
+            }
+            snippets.set(index, snippet);
+            sharedSnippets.clear(index);
+        }
+        return snippet;
+    }
+
+    private void ownSnippetList() {
+        inflate();
+        if (snippetListShared) {
+            this.snippets = new ArrayList<>(snippets);
+            this.snippetListShared = false;
+        }
     }
 
     /**
@@ -367,8 +578,8 @@ public class PowerMessage implements MessageBuilder, Pageable, JsonWritable, Clo
      * @return A Group representing all snippets in a PowerMessage
      */
     public Group group() {
-        this.convertedToJson = false;
-        return new Group(this, groupCount());
+        invalidate();
+        return new Group(this, 0, groupCount());
     }
 
     /**
@@ -380,7 +591,7 @@ public class PowerMessage implements MessageBuilder, Pageable, JsonWritable, Clo
      * @return A {@link com.dsh105.powermessage.core.Group} representing a certain number of snippets
      */
     public Group group(int count) {
-        this.convertedToJson = false;
+        invalidate();
         this.currentGroup = new Group(this, count);
         return currentGroup;
     }
@@ -396,11 +607,17 @@ public class PowerMessage implements MessageBuilder, Pageable, JsonWritable, Clo
      */
     // Inclusively from startIndex, exclusively
     public Group group(int startIndex, int endIndex) {
-        this.convertedToJson = false;
+        invalidate();
         this.currentGroup = new Group(this, startIndex, endIndex);
         return currentGroup;
     }
 
+    // Groups the last entries of the snippet list without expanding appended messages, which the current group is adjusted for
+    private void groupLast(int count) {
+        invalidate();
+        this.currentGroup = Group.ofSegments(this, segmentCount() - count, segmentCount());
+    }
+
 
     /**
      * Gets the number of snippets in a PowerMessage
@@ -408,35 +625,161 @@ public class PowerMessage implements MessageBuilder, Pageable, JsonWritable, Clo
      * @return Group count (number of snippets)
      */
     public int groupCount() {
-        return snippets.size();
+        expandSplices(null);
+        return segmentCount();
+    }
+
+    // Entries in the snippet list, including messages added with append(PowerMessage) that have not been expanded
+    protected List<PowerSnippet> segments() {
+        inflate();
+        return Collections.unmodifiableList(snippets);
+    }
+
+    // Number of entries in the snippet list, without building or expanding any of them
+    protected int segmentCount() {
+        List<?> serialized = serializedSnippets;
+        return serialized != null ? serialized.size() : snippets.size();
+    }
+
+    /**
+     * Replaces messages added with {@link #append(PowerMessage)} with their snippets, so that they can be modified
+     * <p>
+     * The current group, and the given group if there is one, are adjusted so that they cover the same snippets. Any
+     * other group was created after the message was last expanded, and only covers snippets before the first appended
+     * message, so it is unaffected
+     *
+     * @param group Group to adjust, in addition to the current group
+     */
+    protected void expandSplices(Group group) {
+        if (splicedCount == 0) {
+            return;
+        }
+
+        ArrayList<PowerSnippet> expanded = new ArrayList<>(snippets.size() + splicedCount);
+        BitSet shared = new BitSet();
+        int[] positions = new int[snippets.size() + 1];
+        for (int i = 0; i < snippets.size(); i++) {
+            positions[i] = expanded.size();
+            PowerSnippet snippet = snippets.get(i);
+            if (snippet instanceof SplicedSnippet) {
+                // Still shared with the appended message
+                for (PowerSnippet appended : ((SplicedSnippet) snippet).getMessage().expandedSnippets()) {
+                    shared.set(expanded.size());
+                    expanded.add(appended);
+                }
+            } else {
+                if (sharedSnippets.get(i)) {
+                    shared.set(expanded.size());
+                }
+                expanded.add(snippet);
+            }
+        }
+        positions[snippets.size()] = expanded.size();
+
+        this.snippets = expanded;
+        this.snippetListShared = false;
+        this.sharedSnippets = shared;
+        this.splicedCount = 0;
+        if (currentGroup != null) {
+            currentGroup.reposition(positions);
+        }
+        if (group != null && group != currentGroup) {
+            group.reposition(positions);
+        }
     }
 
     private PowerSnippet lastSnippet() {
-        return getSnippet(snippets.size() - 1);
+        return snippets.get(snippets.size() - 1);
+    }
+
+    // Builds the snippets of a deserialized message the first time they are needed
+    private void inflate() {
+        List<?> serialized = serializedSnippets;
+        if (serialized == null) {
+            return;
+        }
+
+        ArrayList<PowerSnippet> inflated = new ArrayList<>(serialized.size());
+        sharedSnippets.clear();
+        for (Object snippet : serialized) {
+            if (snippet instanceof PowerSnippet) {
+                // Already built, and possibly shared with a clone of this message
+                sharedSnippets.set(inflated.size());
+                inflated.add((PowerSnippet) snippet);
+            } else {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> serializedSnippet = (Map<String, Object>) snippet;
+                inflated.add(PowerSnippet.deserialize(serializedSnippet));
+            }
+        }
+        this.snippets = inflated;
+        this.snippetListShared = false;
+        this.serializedSnippets = null;
+    }
+
+    // Discards the JSON and legacy text converted previously, as the message is about to change
+    private void invalidate() {
+        this.convertedToJson = false;
+        this.convertedToContent = false;
+        this.convertedToConsole = false;
     }
 
     private boolean isConvertedToJson() {
         return convertedToJson;
     }
 
+    // Iterates over copies of the snippets, as returned by getSnippets()
     @Override
     public Iterator<PowerSnippet> iterator() {
-        return snippets.iterator();
+        return getSnippets().iterator();
     }
 
     @Override
     public Map<String, Object> serialize() {
         Map<String, Object> serialized = new HashMap<>();
-        serialized.put(SERIALIZED_SNIPPETS, snippets);
+        List<?> serializedSnippets = this.serializedSnippets;
+        if (serializedSnippets == null) {
+            expandSplices(null);
+            // Stored as plain maps so that they are not built until the deserialized message needs them
+            ArrayList<Map<String, Object>> snippetMaps = new ArrayList<>(snippets.size());
+            for (PowerSnippet snippet : snippets) {
+                snippetMaps.add(snippet.serialize());
+            }
+            serializedSnippets = snippetMaps;
+        }
+        serialized.put(SERIALIZED_SNIPPETS, serializedSnippets);
+        serialized.put(SERIALIZED_JSON, toJson());
+        serialized.put(SERIALIZED_LEGACY, getContent());
         return serialized;
     }
 
+    /**
+     * Deserializes a PowerMessage
+     * <p>
+     * If the JSON and legacy text of the message were stored, the message is sent using them and its snippets are
+     * only built once they are inspected or modified
+     *
+     * @param serialized Serialized data of the message
+     * @return A PowerMessage represented by the given data
+     */
     public static PowerMessage deserialize(Map<String, Object> serialized) {
         if (!serialized.containsKey(SERIALIZED_SNIPPETS)) {
             throw new IllegalArgumentException("Failed to deserialize PowerMessage from provided data");
         }
         PowerMessage powerMessage = new PowerMessage();
-        powerMessage.snippets = (ArrayList<PowerSnippet>) serialized.get(SERIALIZED_SNIPPETS);
+        powerMessage.serializedSnippets = (List<?>) serialized.get(SERIALIZED_SNIPPETS);
+
+        Object json = serialized.get(SERIALIZED_JSON);
+        Object legacy = serialized.get(SERIALIZED_LEGACY);
+        if (json instanceof String && legacy instanceof String) {
+            powerMessage.rawJson = (String) json;
+            powerMessage.rawContent = (String) legacy;
+            powerMessage.convertedToJson = true;
+            powerMessage.convertedToContent = true;
+        } else {
+            // Stored by an older version
+            powerMessage.inflate();
+        }
         return powerMessage;
     }
 
@@ -448,30 +791,59 @@ public class PowerMessage implements MessageBuilder, Pageable, JsonWritable, Clo
      * @return Raw JSON to represent a PowerMessage
      */
     public String toJson() {
+        boolean metrics = PowerMessageMetrics.isEnabled();
         if (!isConvertedToJson() || rawJson == null) {
-            StringWriter stringWriter = new StringWriter();
-            JsonWriter writer = new JsonWriter(stringWriter);
-
-            try {
-                writeJson(writer);
-            } catch (IOException e) {
-                throw new InvalidMessageException("Invalid message", e);
-            } finally {
-                try {
-                    writer.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+            boolean traced = MessageTrace.isActive();
+            long start = metrics || traced ? System.nanoTime() : 0L;
+            if (JsonCache.isEnabled()) {
+                cacheEntry = JsonCache.get(this);
+                rawJson = cacheEntry.getJson();
+            } else {
+                cacheEntry = null;
+                rawJson = appendJson(new StringBuilder(rawJson == null ? 64 : rawJson.length())).toString();
             }
-            rawJson = stringWriter.toString();
             convertedToJson = true;
+            if (metrics) {
+                PowerMessageMetrics.recordSerialize(System.nanoTime() - start, rawJson.length());
+            }
+            if (traced) {
+                MessageTrace.emit(TraceEvent.Type.SERIALIZE, start, segmentCount(), rawJson.length(), 0);
+            }
+        } else if (metrics) {
+            PowerMessageMetrics.recordCacheHit();
         }
 
         return rawJson;
     }
 
+    /**
+     * Appends the JSON of a PowerMessage to a builder
+     * <p>
+     * Produces the same JSON as {@link #writeJson(org.bukkit.craftbukkit.libs.com.google.gson.stream.JsonWriter)}
+     *
+     * @param builder Builder to append to
+     * @return The given builder
+     */
+    public StringBuilder appendJson(StringBuilder builder) {
+        inflate();
+        if (snippets.size() == 1) {
+            lastSnippet().appendJson(builder);
+        } else {
+            builder.append("{\"text\":\"\",\"extra\":[");
+            for (int i = 0; i < snippets.size(); i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                snippets.get(i).appendJson(builder);
+            }
+            builder.append("]}");
+        }
+        return builder;
+    }
+
     @Override
     public JsonWriter writeJson(JsonWriter writer) throws IOException {
+        inflate();
         if (snippets.size() == 1) {
             lastSnippet().writeJson(writer);
         } else {
@@ -484,12 +856,54 @@ public class PowerMessage implements MessageBuilder, Pageable, JsonWritable, Clo
         return writer;
     }
 
+    /**
+     * Prepares this PowerMessage to be cloned by several threads at once
+     * <p>
+     * The message is converted and its snippets are marked as shared, so that {@link #clone()} only reads from it
+     * afterwards. Modifying the message again undoes this
+     *
+     * @return This object
+     */
+    public PowerMessage freeze() {
+        toJson();
+        expandSplices(null);
+        markShared();
+        return this;
+    }
+
+    private boolean isShared() {
+        return snippetListShared && sharedSnippets.nextClearBit(0) >= snippets.size();
+    }
+
+    private void markShared() {
+        this.snippetListShared = true;
+        this.sharedSnippets.set(0, snippets.size());
+    }
+
+    /**
+     * Creates a copy of this PowerMessage
+     * <p>
+     * The copy shares its snippets and converted JSON with this message. A snippet is only copied once either message
+     * modifies it, so changes to the copy never affect the original and cloning is inexpensive regardless of the
+     * size of the message
+     * <p>
+     * Cloning a message marks its snippets as shared unless they already are. A message that has been prepared with
+     * {@link #freeze()} is not modified by this method
+     *
+     * @return A copy of this PowerMessage
+     * @throws CloneNotSupportedException Never thrown
+     */
     @Override
     public Object clone() throws CloneNotSupportedException {
         PowerMessage cloned = (PowerMessage) super.clone();
-        for (int i = 0; i < this.getSnippets().size(); i++) {
-            cloned.snippets.add(this.getSnippet(i));
+        if (!isShared()) {
+            markShared();
+        }
+        cloned.snippetListShared = true;
+        cloned.sharedSnippets = (BitSet) this.sharedSnippets.clone();
+        if (currentGroup != null) {
+            cloned.currentGroup = Group.ofSegments(cloned, currentGroup.getStart(), currentGroup.getEnd());
         }
         return cloned;
     }
-}
\ No newline at end of file
+}
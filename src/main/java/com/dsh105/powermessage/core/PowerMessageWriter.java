@@ -0,0 +1,317 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.core;
+
+import com.dsh105.powermessage.action.ClickCallback;
+import com.dsh105.powermessage.exception.InvalidMessageException;
+import com.google.common.base.Supplier;
+import org.bukkit.Achievement;
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.Statistic;
+import org.bukkit.craftbukkit.libs.com.google.gson.stream.JsonWriter;
+import org.bukkit.entity.EntityType;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds a message in the same way as a {@link com.dsh105.powermessage.core.PowerMessage}, but writes its JSON
+ * directly to an output as it is constructed
+ * <p>
+ * Only the snippets added by the most recent call to {@code then} are held in memory. Once a new snippet is begun,
+ * the previous snippets are written and can no longer be changed. The JSON is completed when the writer is closed
+ */
+public class PowerMessageWriter implements MessageBuilder, Flushable, Closeable {
+
+    private final JsonWriter writer;
+    private final PowerMessage pending = new PowerMessage();
+    private boolean started;
+    private boolean closed;
+
+    /**
+     * Constructs a new PowerMessageWriter that writes to a {@link java.io.Writer}
+     *
+     * @param out Writer to write JSON to
+     */
+    public PowerMessageWriter(Writer out) {
+        this.writer = new JsonWriter(out);
+    }
+
+    /**
+     * Constructs a new PowerMessageWriter that writes UTF-8 encoded JSON to an {@link java.io.OutputStream}
+     *
+     * @param out Stream to write JSON to
+     */
+    public PowerMessageWriter(OutputStream out) {
+        this(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Constructs a new PowerMessageWriter that writes UTF-8 encoded JSON to a {@link java.nio.ByteBuffer}
+     * <p>
+     * A {@link java.nio.BufferOverflowException} is thrown if the buffer does not have enough space remaining for the
+     * message
+     *
+     * @param out Buffer to write JSON to
+     */
+    public PowerMessageWriter(ByteBuffer out) {
+        this(new ByteBufferOutputStream(out));
+    }
+
+    /**
+     * Begins construction of a new message snippet, writing out any previous snippets
+     *
+     * @param snippetContent Content to begin the new snippet with
+     * @return This object
+     */
+    public PowerMessageWriter then(String snippetContent) {
+        writePending();
+        pending.then(snippetContent);
+        return this;
+    }
+
+    /**
+     * Begins construction of a new message snippet, writing out any previous snippets
+     *
+     * @param snippetContent Content to begin the new snippet with
+     * @return This object
+     */
+    public PowerMessageWriter then(Object snippetContent) {
+        return then(snippetContent.toString());
+    }
+
+    /**
+     * Adds a new snippet, writing out any previous snippets
+     *
+     * @param snippet Snippet to add
+     * @return This object
+     */
+    public PowerMessageWriter then(PowerSnippet snippet) {
+        writePending();
+        pending.then(snippet);
+        return this;
+    }
+
+    /**
+     * Adds every snippet of an existing PowerMessage, writing out any previous snippets
+     * <p>
+     * The added snippets form the current group until the next snippet is begun, so that changes can be applied to
+     * all of them. The given message itself is not modified
+     *
+     * @param powerMessage Message to add
+     * @return This object
+     */
+    public PowerMessageWriter then(PowerMessage powerMessage) {
+        writePending();
+        pending.append(powerMessage);
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Writes any remaining snippets and completes the JSON, closing the underlying output
+     *
+     * @throws IOException If the JSON could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        writePending();
+        writer.endArray().endObject();
+        writer.close();
+        closed = true;
+    }
+
+    private void writePending() {
+        if (closed) {
+            throw new IllegalStateException("PowerMessageWriter has already been closed");
+        }
+
+        try {
+            if (!started) {
+                writer.beginObject().name("text").value("").name("extra").beginArray();
+                started = true;
+            }
+            for (PowerSnippet snippet : pending.expandedSnippets()) {
+                snippet.writeJson(writer);
+            }
+        } catch (IOException e) {
+            throw new InvalidMessageException("Failed to write message", e);
+        }
+        pending.clear();
+    }
+
+    @Override
+    public String getText() {
+        return pending.getText();
+    }
+
+    @Override
+    public PowerMessageWriter edit(String snippetContent) {
+        pending.edit(snippetContent);
+        return this;
+    }
+
+    @Override
+    public PowerMessageWriter colour(ChatColor... colours) {
+        pending.colour(colours);
+        return this;
+    }
+
+    @Override
+    public PowerMessageWriter file(String relativePath) {
+        pending.file(relativePath);
+        return this;
+    }
+
+    @Override
+    public PowerMessageWriter link(String urlLink) {
+        pending.link(urlLink);
+        return this;
+    }
+
+    @Override
+    public PowerMessageWriter link(Supplier<String> urlLink) {
+        pending.link(urlLink);
+        return this;
+    }
+
+    @Override
+    public PowerMessageWriter suggest(String commandToSuggest) {
+        pending.suggest(commandToSuggest);
+        return this;
+    }
+
+    @Override
+    public PowerMessageWriter suggest(Supplier<String> commandToSuggest) {
+        pending.suggest(commandToSuggest);
+        return this;
+    }
+
+    @Override
+    public PowerMessageWriter perform(String commandToPerform) {
+        pending.perform(commandToPerform);
+        return this;
+    }
+
+    @Override
+    public PowerMessageWriter perform(Supplier<String> commandToPerform) {
+        pending.perform(commandToPerform);
+        return this;
+    }
+
+    @Override
+    public PowerMessageWriter onClick(ClickCallback callback) {
+        pending.onClick(callback);
+        return this;
+    }
+
+    @Override
+    public PowerMessageWriter tooltip(String... content) {
+        pending.tooltip(content);
+        return this;
+    }
+
+    @Override
+    public PowerMessageWriter tooltip(Supplier<String> content) {
+        pending.tooltip(content);
+        return this;
+    }
+
+    @Override
+    public PowerMessageWriter tooltip(PowerMessage powerMessage) {
+        pending.tooltip(powerMessage);
+        return this;
+    }
+
+    @Override
+    public PowerMessageWriter achievementTooltip(String achievementName) {
+        pending.achievementTooltip(achievementName);
+        return this;
+    }
+
+    @Override
+    public PowerMessageWriter itemTooltip(String itemJson) {
+        pending.itemTooltip(itemJson);
+        return this;
+    }
+
+    @Override
+    public PowerMessageWriter itemTooltip(String... itemContent) {
+        pending.itemTooltip(itemContent);
+        return this;
+    }
+
+    @Override
+    public PowerMessageWriter itemTooltip(ItemStack itemStack) {
+        pending.itemTooltip(itemStack);
+        return this;
+    }
+
+    @Override
+    public PowerMessageWriter achievementTooltip(Achievement which) {
+        pending.achievementTooltip(which);
+        return this;
+    }
+
+    @Override
+    public PowerMessageWriter statisticTooltip(Statistic which) {
+        pending.statisticTooltip(which);
+        return this;
+    }
+
+    @Override
+    public PowerMessageWriter statisticTooltip(Statistic which, Material item) {
+        pending.statisticTooltip(which, item);
+        return this;
+    }
+
+    @Override
+    public PowerMessageWriter statisticTooltip(Statistic which, EntityType entity) {
+        pending.statisticTooltip(which, entity);
+        return this;
+    }
+
+    private static class ByteBufferOutputStream extends OutputStream {
+
+        private final ByteBuffer buffer;
+
+        public ByteBufferOutputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            buffer.put(bytes, offset, length);
+        }
+    }
+}
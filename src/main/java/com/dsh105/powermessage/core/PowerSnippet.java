@@ -18,8 +18,13 @@
 package com.dsh105.powermessage.core;
 
 import com.dsh105.powermessage.action.ActionEvent;
+import com.dsh105.powermessage.exception.InvalidMessageException;
+import com.dsh105.powermessage.layout.ChatLayout;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.ImmutableBiMap;
+import org.apache.commons.lang.Validate;
 import org.bukkit.ChatColor;
 import org.bukkit.configuration.serialization.ConfigurationSerializable;
 import org.bukkit.configuration.serialization.ConfigurationSerialization;
@@ -38,6 +43,7 @@ public class PowerSnippet implements JsonWritable, Cloneable, ConfigurationSeria
     private static final String SERIALIZED_ACTION_EVENTS = "actionEvents";
 
     private static final BiMap<ChatColor, String> STYLE_TO_NAME_MAP;
+    private static final Map<ChatColor, String> COLOUR_JSON = new EnumMap<>(ChatColor.class);
 
     static {
         ConfigurationSerialization.registerClass(PowerSnippet.class);
@@ -64,11 +70,17 @@ public class PowerSnippet implements JsonWritable, Cloneable, ConfigurationSeria
             builder.put(style, styleName);
         }
         STYLE_TO_NAME_MAP = builder.build();
+
+        for (ChatColor colour : ChatColor.values()) {
+            COLOUR_JSON.put(colour, colour.isFormat() ? "\"" + STYLE_TO_NAME_MAP.get(colour) + "\":true" : "\"color\":\"" + colour.name().toLowerCase() + "\"");
+        }
     }
 
     private String text;
     private ArrayList<ChatColor> colours = new ArrayList<>();
     private ArrayList<ActionEvent> actionEvents = new ArrayList<>();
+    // Cached until the text or colours are changed
+    private int width = -1;
 
     /**
      * Constructs a new PowerSnippet with text
@@ -89,7 +101,9 @@ public class PowerSnippet implements JsonWritable, Cloneable, ConfigurationSeria
     }
 
     protected void setText(String text) {
-        this.text = ChatColor.stripColor(text);
+        // Most text has already been split on colour codes, so avoid running the strip pattern where possible
+        this.width = -1;
+        this.text = TextPool.pool(text == null || text.indexOf(ChatColor.COLOR_CHAR) < 0 ? text : ChatColor.stripColor(text));
     }
 
     /**
@@ -101,6 +115,19 @@ public class PowerSnippet implements JsonWritable, Cloneable, ConfigurationSeria
         return Collections.unmodifiableList(this.colours);
     }
 
+    /**
+     * Gets the width of a snippet in pixels, as displayed with the client's default font
+     *
+     * @return Width of a snippet
+     * @see com.dsh105.powermessage.layout.ChatLayout
+     */
+    public int getWidth() {
+        if (width < 0) {
+            width = ChatLayout.getWidth(text, colours.contains(ChatColor.BOLD));
+        }
+        return width;
+    }
+
     /**
      * Gets the action events of a snippet
      *
@@ -118,6 +145,7 @@ public class PowerSnippet implements JsonWritable, Cloneable, ConfigurationSeria
      */
     public PowerSnippet withColour(ChatColor... colours) {
         Collections.addAll(this.colours, colours);
+        this.width = -1;
         return this;
     }
 
@@ -143,19 +171,50 @@ public class PowerSnippet implements JsonWritable, Cloneable, ConfigurationSeria
      * @return This object
      */
     public PowerSnippet withEvent(String eventType, String eventName, String eventData) {
-        ActionEvent event = new ActionEvent(eventType).withName(eventName).withData(eventData);
         ActionEvent existing = getActionEvent(eventType, eventName);
         if (existing == null) {
-            this.actionEvents.add(event);
+            this.actionEvents.add(new ActionEvent(eventType).withName(eventName).withData(eventData).validate());
             return this;
         }
 
-        StringBuilder builder = new StringBuilder()
-                .append(existing.getData())
-                .append("\n")
-                .append(event.getData());
+        // Combined when the data is first needed, as the existing data may not have been supplied yet
+        Validate.notEmpty(eventData, "Action data cannot be empty!");
+        return withEvent(eventType, eventName, Suppliers.ofInstance(eventData));
+    }
 
-        this.actionEvents.add(new ActionEvent(eventType).withName(eventName).withData(builder.toString()));
+    /**
+     * Adds an event to a snippet, with data that is retrieved from the given supplier the first time it is needed
+     *
+     * @param eventType Type of event to add
+     * @param eventName Name of event being added
+     * @param eventData Supplier of the data of the event being added
+     * @return This object
+     */
+    public PowerSnippet withEvent(String eventType, String eventName, final Supplier<String> eventData) {
+        final ActionEvent existing = getActionEvent(eventType, eventName);
+        if (existing == null) {
+            this.actionEvents.add(new ActionEvent(eventType).withName(eventName).withData(eventData).validate());
+            return this;
+        }
+
+        this.actionEvents.add(new ActionEvent(eventType).withName(eventName).withData(new Supplier<String>() {
+            @Override
+            public String get() {
+                return existing.getData() + "\n" + eventData.get();
+            }
+        }).validate());
+        return this;
+    }
+
+    /**
+     * Adds an event to a snippet as it is, without combining it with an existing event of the same type and name
+     *
+     * @param event Event to add
+     * @return This object
+     * @throws IllegalArgumentException If the name or data of the event is empty
+     */
+    public PowerSnippet withActionEvent(ActionEvent event) {
+        this.actionEvents.add(event.validate());
         return this;
     }
 
@@ -167,7 +226,8 @@ public class PowerSnippet implements JsonWritable, Cloneable, ConfigurationSeria
      * @return Event if it exists, null if not
      */
     public ActionEvent getActionEvent(String eventType, String eventName) {
-        for (ActionEvent event : getActionEvents()) {
+        for (int i = 0; i < actionEvents.size(); i++) {
+            ActionEvent event = actionEvents.get(i);
             if (event.getActionType().equals(eventType) && event.getName().equals(eventName)) {
                 return event;
             }
@@ -189,8 +249,20 @@ public class PowerSnippet implements JsonWritable, Cloneable, ConfigurationSeria
             throw new IllegalArgumentException("Failed to deserialize PowerSnippet from provided data");
         }
         PowerSnippet snippet = new PowerSnippet((String) serialized.get(SERIALIZED_TEXT));
-        snippet.colours = (ArrayList<ChatColor>) serialized.get(SERIALIZED_COLOURS);
-        snippet.actionEvents = (ArrayList<ActionEvent>) serialized.get(SERIALIZED_ACTION_EVENTS);
+        // Copied, as a serialized message may be built more than once from the same data
+        @SuppressWarnings("unchecked")
+        List<ChatColor> colours = (List<ChatColor>) serialized.get(SERIALIZED_COLOURS);
+        @SuppressWarnings("unchecked")
+        List<ActionEvent> actionEvents = (List<ActionEvent>) serialized.get(SERIALIZED_ACTION_EVENTS);
+        snippet.colours = new ArrayList<>(colours);
+        snippet.actionEvents = new ArrayList<>(actionEvents.size());
+        for (ActionEvent event : actionEvents) {
+            try {
+                snippet.actionEvents.add((ActionEvent) event.clone());
+            } catch (CloneNotSupportedException e) {
+                throw new InvalidMessageException("Failed to copy action event", e);
+            }
+        }
         return snippet;
     }
 
@@ -213,11 +285,53 @@ public class PowerSnippet implements JsonWritable, Cloneable, ConfigurationSeria
         return writer.endObject();
     }
 
+    /**
+     * Appends the JSON of a snippet to a builder
+     * <p>
+     * Produces the same JSON as {@link #writeJson(org.bukkit.craftbukkit.libs.com.google.gson.stream.JsonWriter)},
+     * but appends the pre-escaped JSON of each event directly
+     *
+     * @param builder Builder to append to
+     * @return The given builder
+     */
+    public StringBuilder appendJson(StringBuilder builder) {
+        JsonStrings.appendQuoted(builder.append("{\"text\":"), text);
+        for (ChatColor colour : colours) {
+            builder.append(',').append(COLOUR_JSON.get(colour));
+        }
+        for (ActionEvent event : actionEvents) {
+            builder.append(',').append(event.getJsonFragment());
+        }
+        return builder.append('}');
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        // Appended messages are only equal to each other
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PowerSnippet other = (PowerSnippet) o;
+        return Objects.equals(text, other.text) && colours.equals(other.colours) && actionEvents.equals(other.actionEvents);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(text, colours, actionEvents);
+    }
+
     @Override
     public Object clone() throws CloneNotSupportedException {
         PowerSnippet snippet = (PowerSnippet) super.clone();
-        snippet.colours = (ArrayList<ChatColor>) colours.clone();
-        snippet.actionEvents = (ArrayList<ActionEvent>) actionEvents.clone();
+        snippet.colours = new ArrayList<>(colours);
+        // Events can be modified through getActionEvent, so they are copied as well
+        snippet.actionEvents = new ArrayList<>(actionEvents.size());
+        for (ActionEvent event : actionEvents) {
+            snippet.actionEvents.add((ActionEvent) event.clone());
+        }
         return snippet;
     }
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.core;
+
+import com.dsh105.commodus.paginator.Pageable;
+import com.dsh105.powermessage.dialect.ChatDialect;
+import com.dsh105.powermessage.dialect.ChatDialects;
+import com.dsh105.powermessage.metrics.PowerMessageMetrics;
+import com.dsh105.powermessage.send.ChatCoalescer;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+/**
+ * Represents a message that has already been converted to JSON, such as those generated from a
+ * {@link com.dsh105.powermessage.compile.MessageCatalog}
+ * <p>
+ * PrecompiledMessages cannot be modified and are sent without any conversion taking place
+ */
+public class PrecompiledMessage implements Pageable {
+
+    private final String id;
+    private final String json;
+    private final String legacy;
+    private volatile PreparedPacket packet;
+
+    /**
+     * Constructs a new PrecompiledMessage
+     *
+     * @param id     Identifier of the message
+     * @param json   Raw JSON of the message, as produced by {@link PowerMessage#toJson()}
+     * @param legacy Legacy text of the message, as produced by {@link PowerMessage#getContent()}
+     */
+    public PrecompiledMessage(String id, String json, String legacy) {
+        this.id = id;
+        this.json = json;
+        this.legacy = legacy;
+    }
+
+    /**
+     * Gets the identifier of this message
+     *
+     * @return Identifier of the message
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the raw JSON of this message
+     *
+     * @return Raw JSON to represent this message
+     */
+    public String toJson() {
+        return json;
+    }
+
+    @Override
+    public String getContent() {
+        return legacy;
+    }
+
+    /**
+     * Gets the NMS chat packet for this message, creating it on first use or after the dialect has changed
+     *
+     * @return A chat packet representing this message
+     */
+    public Object toPacket() {
+        PreparedPacket previous = packet;
+        PreparedPacket result = PreparedPacket.prepare(previous, json);
+        if (result != previous) {
+            packet = result;
+        }
+        return result.getPacket();
+    }
+
+    /**
+     * Sends this message to a Bukkit {@link org.bukkit.command.CommandSender}
+     *
+     * @param sender Whom to send the message to
+     * @return This object
+     */
+    @Override
+    public PrecompiledMessage send(CommandSender sender) {
+        if (sender instanceof Player) {
+            send((Player) sender);
+        } else {
+            sender.sendMessage(legacy);
+        }
+        return this;
+    }
+
+    /**
+     * Sends this message to a group of Bukkit {@link org.bukkit.entity.Player}s
+     *
+     * @param players Whom to send the message to
+     * @return This object
+     */
+    public PrecompiledMessage send(Player... players) {
+        boolean metrics = PowerMessageMetrics.isEnabled();
+        long start = metrics ? System.nanoTime() : 0L;
+        ChatDialect dialect = ChatDialects.getCurrent();
+        Object content = dialect.isJsonSupported() ? toPacket() : legacy;
+        for (Player player : players) {
+            ChatCoalescer.flushPending(player);
+            dialect.write(player, content);
+        }
+        if (metrics) {
+            PowerMessageMetrics.recordSend(System.nanoTime() - start, players.length);
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return json;
+    }
+}
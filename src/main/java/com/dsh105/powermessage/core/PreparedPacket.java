@@ -0,0 +1,57 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.core;
+
+import com.dsh105.powermessage.dialect.ChatDialect;
+import com.dsh105.powermessage.dialect.ChatDialects;
+
+/**
+ * A chat packet along with the {@link com.dsh105.powermessage.dialect.ChatDialect} that created it
+ * <p>
+ * Packets created by one dialect cannot be written by another, so a cached packet is only reused while the dialect
+ * that created it is still current
+ */
+class PreparedPacket {
+
+    private final ChatDialect dialect;
+    private final Object packet;
+
+    private PreparedPacket(ChatDialect dialect, Object packet) {
+        this.dialect = dialect;
+        this.packet = packet;
+    }
+
+    public Object getPacket() {
+        return packet;
+    }
+
+    /**
+     * Gets a packet for some JSON, reusing a previously prepared packet if it was created by the current dialect
+     *
+     * @param previous Packet prepared previously for the same JSON, or null if there is none
+     * @param json     Raw JSON to convert
+     * @return The previous packet if it can be reused, otherwise a new packet created by the current dialect
+     */
+    public static PreparedPacket prepare(PreparedPacket previous, String json) {
+        ChatDialect dialect = ChatDialects.getCurrent();
+        if (previous != null && previous.dialect == dialect) {
+            return previous;
+        }
+        return new PreparedPacket(dialect, dialect.prepareJson(json));
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dsh105.powermessage.core;
+
+import com.dsh105.powermessage.layout.ChatLayout;
+import org.bukkit.craftbukkit.libs.com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * A placeholder for a message appended to another with {@link PowerMessage#append(PowerMessage)}
+ * <p>
+ * The JSON of the appended message is copied into its parent as-is. The placeholder is replaced by the snippets of
+ * the appended message as soon as the parent needs to inspect or modify them
+ */
+class SplicedSnippet extends PowerSnippet {
+
+    private final PowerMessage message;
+
+    public SplicedSnippet(PowerMessage message) {
+        super("");
+        this.message = message;
+    }
+
+    public PowerMessage getMessage() {
+        return message;
+    }
+
+    @Override
+    public int getWidth() {
+        return ChatLayout.getWidth(message);
+    }
+
+    @Override
+    public JsonWriter writeJson(JsonWriter writer) throws IOException {
+        return message.writeJson(writer);
+    }
+
+    @Override
+    public StringBuilder appendJson(StringBuilder builder) {
+        return builder.append(message.toJson());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof SplicedSnippet && message.toJson().equals(((SplicedSnippet) o).message.toJson()));
+    }
+
+    @Override
+    public int hashCode() {
+        return message.toJson().hashCode();
+    }
+}
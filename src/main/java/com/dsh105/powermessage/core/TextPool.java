@@ -0,0 +1,114 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.core;
+
+import com.dsh105.powermessage.metrics.StripedCounter;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * An optional pool that deduplicates the text of snippets and the data of action events, so that messages repeating
+ * the same fragments (separators, prefixes, "[Click here]" and so on) share a single copy of each
+ * <p>
+ * Pooled strings are only weakly held and are private to PowerMessage. Pooling is disabled by default and can be
+ * enabled with the {@code powermessage.dedup} system property or {@link #setEnabled(boolean)}
+ */
+public final class TextPool {
+
+    // Object header, fields and character array header of a String on a typical 64-bit JVM
+    private static final int STRING_OVERHEAD = 56;
+
+    private static final Interner<String> INTERNER = Interners.newWeakInterner();
+    private static final StripedCounter LOOKUPS = new StripedCounter();
+    private static final StripedCounter HITS = new StripedCounter();
+    private static final StripedCounter SAVED_BYTES = new StripedCounter();
+
+    private static volatile boolean enabled = Boolean.getBoolean("powermessage.dedup");
+
+    private TextPool() {
+    }
+
+    /**
+     * Gets whether text is currently being pooled
+     *
+     * @return True if text is being pooled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether text should be pooled
+     * <p>
+     * Only text added after pooling is enabled is pooled
+     *
+     * @param enabled True to pool text
+     */
+    public static void setEnabled(boolean enabled) {
+        TextPool.enabled = enabled;
+    }
+
+    /**
+     * Gets the pooled copy of a string, if pooling is enabled
+     *
+     * @param value String to look up
+     * @return A pooled string equal to the given value, or the value itself if pooling is disabled
+     */
+    public static String pool(String value) {
+        if (!enabled || value == null) {
+            return value;
+        }
+
+        String pooled = INTERNER.intern(value);
+        LOOKUPS.increment();
+        if (pooled != value) {
+            HITS.increment();
+            SAVED_BYTES.add(STRING_OVERHEAD + 2L * value.length());
+        }
+        return pooled;
+    }
+
+    /**
+     * Gets the number of strings looked up in the pool
+     *
+     * @return Number of lookups
+     */
+    public static long getLookups() {
+        return LOOKUPS.sum();
+    }
+
+    /**
+     * Gets the number of strings that were replaced by an existing pooled copy
+     *
+     * @return Number of duplicates found
+     */
+    public static long getHits() {
+        return HITS.sum();
+    }
+
+    /**
+     * Gets an estimate of the memory saved by replacing duplicate strings with their pooled copies
+     * <p>
+     * This counts every duplicate found, including those that have since been discarded
+     *
+     * @return Estimated memory saved, in bytes
+     */
+    public static long getSavedBytes() {
+        return SAVED_BYTES.sum();
+    }
+}
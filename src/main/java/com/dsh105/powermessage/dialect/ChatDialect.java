@@ -0,0 +1,80 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dsh105.powermessage.dialect;
+
+import com.dsh105.powermessage.core.PowerMessage;
+import org.bukkit.entity.Player;
+
+/**
+ * Represents the way messages are converted and written to players for a particular server protocol
+ * <p>
+ * The dialect in use is chosen once by {@link com.dsh105.powermessage.dialect.ChatDialects}, so that sending a
+ * message does not need to check the server version
+ */
+public interface ChatDialect {
+
+    /**
+     * Gets the name of this dialect
+     *
+     * @return Name of this dialect
+     */
+    String getName();
+
+    /**
+     * Gets whether this dialect sends messages as JSON
+     *
+     * @return True if messages are sent as JSON, false if they are sent as legacy text
+     */
+    boolean isJsonSupported();
+
+    /**
+     * Converts a message to the content written by {@link #write(org.bukkit.entity.Player, Object)}
+     * <p>
+     * The returned content may be written to any number of players
+     *
+     * @param message Message to convert
+     * @return Content representing the given message
+     */
+    Object prepare(PowerMessage message);
+
+    /**
+     * Converts raw JSON to the content written by {@link #write(org.bukkit.entity.Player, Object)}
+     *
+     * @param json Raw JSON to convert
+     * @return Content representing the given JSON
+     * @throws java.lang.UnsupportedOperationException if this dialect does not support JSON
+     */
+    Object prepareJson(String json);
+
+    /**
+     * Writes content created by this dialect to a player
+     *
+     * @param player  Player to write to
+     * @param content Content to write
+     */
+    void write(Player player, Object content);
+
+    /**
+     * Gets whether a player's connection can currently accept more data without buffering it
+     * <p>
+     * Returns true if this cannot be determined
+     *
+     * @param player Player to check
+     * @return True if the player's connection is writable
+     */
+    boolean isWritable(Player player);
+}
@@ -0,0 +1,79 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dsh105.powermessage.dialect;
+
+import com.dsh105.commodus.ServerUtil;
+import com.dsh105.powermessage.core.JsonCache;
+import org.apache.commons.lang.Validate;
+
+/**
+ * Selects the {@link com.dsh105.powermessage.dialect.ChatDialect} used to send messages
+ * <p>
+ * The dialect is chosen once, the first time a message is sent, based on the version of the server. If the server
+ * supports JSON chat messages but the required NMS classes cannot be found, messages fall back to legacy text
+ */
+public class ChatDialects {
+
+    private static volatile ChatDialect current;
+
+    private ChatDialects() {
+    }
+
+    /**
+     * Gets the dialect used to send messages, selecting it if this has not yet been done
+     *
+     * @return Dialect used to send messages
+     */
+    public static ChatDialect getCurrent() {
+        ChatDialect dialect = current;
+        if (dialect == null) {
+            synchronized (ChatDialects.class) {
+                dialect = current;
+                if (dialect == null) {
+                    dialect = select();
+                    current = dialect;
+                }
+            }
+        }
+        return dialect;
+    }
+
+    /**
+     * Sets the dialect used to send messages, replacing the one selected for this server
+     * <p>
+     * The {@link com.dsh105.powermessage.core.JsonCache} is cleared, and packets cached by messages are recreated the
+     * next time they are sent, as they were created by the previous dialect
+     *
+     * @param dialect Dialect used to send messages
+     */
+    public static void setCurrent(ChatDialect dialect) {
+        Validate.notNull(dialect, "Dialect cannot be null");
+        current = dialect;
+        JsonCache.clear();
+    }
+
+    private static ChatDialect select() {
+        if (ServerUtil.getVersion().isCompatible("1.7")) {
+            try {
+                return new ReflectiveJsonDialect();
+            } catch (RuntimeException ignored) {
+                // Unrecognised server internals
+            }
+        }
+        return new LegacyDialect();
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dsh105.powermessage.dialect;
+
+import com.dsh105.powermessage.core.PowerMessage;
+import org.bukkit.entity.Player;
+
+/**
+ * Sends messages as legacy coloured text, for servers that do not support JSON chat messages
+ */
+public class LegacyDialect implements ChatDialect {
+
+    @Override
+    public String getName() {
+        return "legacy";
+    }
+
+    @Override
+    public boolean isJsonSupported() {
+        return false;
+    }
+
+    @Override
+    public Object prepare(PowerMessage message) {
+        return message.getContent();
+    }
+
+    @Override
+    public Object prepareJson(String json) {
+        throw new UnsupportedOperationException("JSON chat messages are not supported by this server");
+    }
+
+    @Override
+    public void write(Player player, Object content) {
+        player.sendMessage((String) content);
+    }
+
+    @Override
+    public boolean isWritable(Player player) {
+        return true;
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dsh105.powermessage.dialect;
+
+import com.dsh105.commodus.reflection.Reflection;
+import com.dsh105.powermessage.core.PowerMessage;
+import org.bukkit.entity.Player;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sends messages as JSON chat packets, written directly to each player's connection (1.7 and above)
+ * <p>
+ * All NMS members are looked up when the dialect is created, rather than each time a message is sent
+ */
+public class ReflectiveJsonDialect implements ChatDialect {
+
+    private final Method chatFromJson;
+    private final Constructor<?> packetConstructor;
+    private final Class<?> packetClass;
+
+    private final Map<Class<?>, Method> handleMethods = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Field> connectionFields = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Method> sendMethods = new ConcurrentHashMap<>();
+
+    // Looked up on first use, as not every server exposes the channel of a connection in the same way
+    private volatile Writability writability;
+    private volatile boolean writabilityUnavailable;
+
+    /**
+     * Constructs a new ReflectiveJsonDialect, looking up the NMS classes required to create and send chat packets
+     *
+     * @throws java.lang.IllegalStateException if the required NMS classes could not be found
+     */
+    public ReflectiveJsonDialect() {
+        Class<?> componentClass = Reflection.getNMSClass("IChatBaseComponent");
+        Method fromJson = null;
+        for (Method method : Reflection.getNMSClass("ChatSerializer").getDeclaredMethods()) {
+            if (method.getReturnType().equals(componentClass) && method.getParameterTypes().length == 1 && method.getParameterTypes()[0].equals(String.class)) {
+                fromJson = method;
+                break;
+            }
+        }
+        if (fromJson == null) {
+            throw new IllegalStateException("Could not find the JSON chat serializer");
+        }
+        this.chatFromJson = fromJson;
+
+        ArrayList<Method> packetMethods = new ArrayList<>();
+        for (Method method : Reflection.getNMSClass("EnumProtocol").getDeclaredMethods()) {
+            if (Map.class.isAssignableFrom(method.getReturnType()) && method.getParameterTypes().length == 0) {
+                method.setAccessible(true);
+                packetMethods.add(method);
+            }
+        }
+        Class<?> chatPacketClass = (Class<?>) ((Map) Reflection.invoke(packetMethods.get(0), Reflection.getNMSClass("EnumProtocol").getEnumConstants()[1])).get(0x02);
+
+        Constructor<?> constructor;
+        try {
+            constructor = chatPacketClass.getConstructor(componentClass);
+        } catch (NoSuchMethodException e) {
+            // This is more of a backup
+            constructor = Reflection.getConstructor(Reflection.getNMSClass("PacketPlayOutChat"), componentClass);
+        }
+        this.packetConstructor = constructor;
+        this.packetClass = Reflection.getNMSClass("Packet");
+    }
+
+    @Override
+    public String getName() {
+        return "json";
+    }
+
+    @Override
+    public boolean isJsonSupported() {
+        return true;
+    }
+
+    @Override
+    public Object prepare(PowerMessage message) {
+        return prepareJson(message.toJson());
+    }
+
+    @Override
+    public Object prepareJson(String json) {
+        return Reflection.newInstance(packetConstructor, Reflection.invokeStatic(chatFromJson, json));
+    }
+
+    @Override
+    public void write(Player player, Object content) {
+        Object connection = getConnection(player);
+        Method sendPacket = sendMethods.get(connection.getClass());
+        if (sendPacket == null) {
+            sendPacket = Reflection.getMethod(connection.getClass(), "sendPacket", packetClass);
+            sendMethods.put(connection.getClass(), sendPacket);
+        }
+        Reflection.invoke(sendPacket, connection, content);
+    }
+
+    @Override
+    public boolean isWritable(Player player) {
+        if (writabilityUnavailable) {
+            return true;
+        }
+
+        try {
+            Object connection = getConnection(player);
+            Writability resolved = writability;
+            if (resolved == null) {
+                resolved = resolveWritability(connection.getClass());
+            }
+            return resolved.isWritable(connection);
+        } catch (ReflectiveOperationException e) {
+            // This server does not expose the channel in a way we recognise
+            writabilityUnavailable = true;
+            return true;
+        } catch (RuntimeException e) {
+            // Usually the player disconnecting while being checked
+            return true;
+        }
+    }
+
+    private synchronized Writability resolveWritability(Class<?> connectionClass) throws ReflectiveOperationException {
+        Writability resolved = writability;
+        if (resolved == null) {
+            Field networkManagerField = findField(connectionClass, Reflection.getNMSClass("NetworkManager"));
+            // Netty is relocated on some servers, so the channel is found by name
+            Field channelField = findField(networkManagerField.getType(), "Channel");
+            resolved = new Writability(networkManagerField, channelField, channelField.getType().getMethod("isWritable"));
+            writability = resolved;
+        }
+        return resolved;
+    }
+
+    private static Field findField(Class<?> owner, Class<?> type) throws NoSuchFieldException {
+        for (Class<?> c = owner; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (type.isAssignableFrom(field.getType())) {
+                    field.setAccessible(true);
+                    return field;
+                }
+            }
+        }
+        throw new NoSuchFieldException(type.getName());
+    }
+
+    private static Field findField(Class<?> owner, String simpleTypeName) throws NoSuchFieldException {
+        for (Class<?> c = owner; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (field.getType().getSimpleName().equals(simpleTypeName)) {
+                    field.setAccessible(true);
+                    return field;
+                }
+            }
+        }
+        throw new NoSuchFieldException(simpleTypeName);
+    }
+
+    // Members used to check whether a connection's channel can accept more packets, resolved once
+    private static class Writability {
+
+        private final Field networkManagerField;
+        private final Field channelField;
+        private final Method isWritableMethod;
+
+        public Writability(Field networkManagerField, Field channelField, Method isWritableMethod) {
+            this.networkManagerField = networkManagerField;
+            this.channelField = channelField;
+            this.isWritableMethod = isWritableMethod;
+        }
+
+        public boolean isWritable(Object connection) throws ReflectiveOperationException {
+            Object networkManager = networkManagerField.get(connection);
+            Object channel = networkManager == null ? null : channelField.get(networkManager);
+            return channel == null || (Boolean) isWritableMethod.invoke(channel);
+        }
+    }
+
+    private Object getConnection(Player player) {
+        Method getHandle = handleMethods.get(player.getClass());
+        if (getHandle == null) {
+            getHandle = Reflection.getMethod(player.getClass(), "getHandle");
+            handleMethods.put(player.getClass(), getHandle);
+        }
+        Object handle = Reflection.invoke(getHandle, player);
+
+        Field connectionField = connectionFields.get(handle.getClass());
+        if (connectionField == null) {
+            connectionField = Reflection.getField(handle.getClass(), "playerConnection");
+            connectionFields.put(handle.getClass(), connectionField);
+        }
+        return Reflection.getFieldValue(connectionField, handle);
+    }
+}
@@ -19,6 +19,8 @@ package com.dsh105.powermessage.exception;
 
 public class InvalidMessageException extends RuntimeException {
 
+    private static final long serialVersionUID = 1L;
+
     public InvalidMessageException() {
     }
 
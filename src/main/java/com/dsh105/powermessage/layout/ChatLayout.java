@@ -0,0 +1,219 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dsh105.powermessage.layout;
+
+import com.dsh105.powermessage.core.PowerMessage;
+import com.dsh105.powermessage.core.PowerSnippet;
+import org.bukkit.ChatColor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures, aligns and wraps {@link com.dsh105.powermessage.core.PowerMessage}s using the widths of the characters in
+ * the client's default font
+ * <p>
+ * All widths are in pixels at the default chat scale, and include the one pixel gap that follows each character.
+ * Characters outside of the Latin-1 range are assumed to have the default width
+ */
+public final class ChatLayout {
+
+    /**
+     * Width of the chat window with default client settings
+     */
+    public static final int CHAT_WIDTH = 320;
+
+    private static final int DEFAULT_WIDTH = 6;
+    private static final int SPACE_WIDTH = 4;
+    private static final int BOLD_SPACE_WIDTH = SPACE_WIDTH + 1;
+    private static final int[] WIDTHS = new int[256];
+
+    static {
+        Arrays.fill(WIDTHS, DEFAULT_WIDTH);
+        setWidth(" ", 4);
+        setWidth("!,.:;|i'", 2);
+        setWidth("`l", 3);
+        setWidth("\"()*I[]t{}", 4);
+        setWidth("<>fk", 5);
+        setWidth("@~", 7);
+    }
+
+    private ChatLayout() {
+    }
+
+    private static void setWidth(String characters, int width) {
+        for (char character : characters.toCharArray()) {
+            WIDTHS[character] = width;
+        }
+    }
+
+    /**
+     * Gets the width of a single character
+     *
+     * @param character Character to measure
+     * @param bold      True if the character is bold
+     * @return Width of the character
+     */
+    public static int getWidth(char character, boolean bold) {
+        int width = character < WIDTHS.length ? WIDTHS[character] : DEFAULT_WIDTH;
+        return bold ? width + 1 : width;
+    }
+
+    /**
+     * Gets the width of some text
+     *
+     * @param text Text to measure, without colour codes
+     * @param bold True if the text is bold
+     * @return Width of the text
+     */
+    public static int getWidth(String text, boolean bold) {
+        int width = 0;
+        for (int i = 0; i < text.length(); i++) {
+            width += getWidth(text.charAt(i), bold);
+        }
+        return width;
+    }
+
+    /**
+     * Gets the width of a message
+     * <p>
+     * The width of each snippet is cached by the snippet until it is modified
+     *
+     * @param message Message to measure
+     * @return Width of the message
+     */
+    public static int getWidth(PowerMessage message) {
+        int width = 0;
+        for (PowerSnippet snippet : message) {
+            width += snippet.getWidth();
+        }
+        return width;
+    }
+
+    /**
+     * Pads a message with spaces so that it is at least a certain width
+     * <p>
+     * Bold spaces are used where needed to reach the exact width, which is possible for any width difference of
+     * 12 pixels or more
+     *
+     * @param message Message to pad
+     * @param width   Width to pad the message to
+     * @return The given message
+     */
+    public static PowerMessage pad(PowerMessage message, int width) {
+        appendSpaces(message, width - getWidth(message));
+        return message;
+    }
+
+    /**
+     * Creates a copy of a message that is centred within a line of a certain width
+     *
+     * @param message   Message to centre
+     * @param lineWidth Width of the line to centre the message in
+     * @return A new, centred message
+     */
+    public static PowerMessage center(PowerMessage message, int lineWidth) {
+        PowerMessage centred = new PowerMessage();
+        appendSpaces(centred, (lineWidth - getWidth(message)) / 2);
+        return centred.append(message);
+    }
+
+    /**
+     * Creates a copy of a message that is centred within the chat window
+     *
+     * @param message Message to centre
+     * @return A new, centred message
+     */
+    public static PowerMessage center(PowerMessage message) {
+        return center(message, CHAT_WIDTH);
+    }
+
+    /**
+     * Splits a message into lines that each fit within a certain width
+     * <p>
+     * Lines are only broken between snippets. A snippet that is wider than a line on its own is placed on a line by
+     * itself
+     *
+     * @param message   Message to wrap
+     * @param lineWidth Maximum width of each line
+     * @return New messages representing each line, in order
+     */
+    public static List<PowerMessage> wrap(PowerMessage message, int lineWidth) {
+        List<PowerMessage> lines = new ArrayList<>();
+        PowerMessage line = new PowerMessage();
+        int width = 0;
+        for (PowerSnippet snippet : message) {
+            int snippetWidth = snippet.getWidth();
+            if (width > 0 && width + snippetWidth > lineWidth) {
+                lines.add(line);
+                line = new PowerMessage();
+                width = 0;
+            }
+            // Iterating a message already provides copies of its snippets
+            line.then(snippet);
+            width += snippetWidth;
+        }
+        if (width > 0 || lines.isEmpty()) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    /**
+     * Splits a message into lines that each fit within the chat window
+     *
+     * @param message Message to wrap
+     * @return New messages representing each line, in order
+     */
+    public static List<PowerMessage> wrap(PowerMessage message) {
+        return wrap(message, CHAT_WIDTH);
+    }
+
+    private static void appendSpaces(PowerMessage message, int width) {
+        if (width < SPACE_WIDTH) {
+            return;
+        }
+
+        // Find the combination of normal and bold spaces that comes closest to the width without exceeding it
+        int bestSpaces = width / SPACE_WIDTH;
+        int bestBoldSpaces = 0;
+        int bestWidth = bestSpaces * SPACE_WIDTH;
+        for (int boldSpaces = 1; boldSpaces < SPACE_WIDTH && boldSpaces * BOLD_SPACE_WIDTH <= width; boldSpaces++) {
+            int spaces = (width - boldSpaces * BOLD_SPACE_WIDTH) / SPACE_WIDTH;
+            int total = spaces * SPACE_WIDTH + boldSpaces * BOLD_SPACE_WIDTH;
+            if (total > bestWidth) {
+                bestSpaces = spaces;
+                bestBoldSpaces = boldSpaces;
+                bestWidth = total;
+            }
+        }
+
+        if (bestSpaces > 0) {
+            message.then(new PowerSnippet(repeat(' ', bestSpaces)));
+        }
+        if (bestBoldSpaces > 0) {
+            message.then(new PowerSnippet(repeat(' ', bestBoldSpaces)).withColour(ChatColor.BOLD));
+        }
+    }
+
+    private static String repeat(char character, int count) {
+        char[] characters = new char[count];
+        Arrays.fill(characters, character);
+        return new String(characters);
+    }
+}
@@ -18,6 +18,9 @@
 package com.dsh105.powermessage.markup;
 
 import com.dsh105.powermessage.core.PowerMessage;
+import com.dsh105.powermessage.metrics.MessageTrace;
+import com.dsh105.powermessage.metrics.PowerMessageMetrics;
+import com.dsh105.powermessage.metrics.TraceEvent;
 import org.bukkit.ChatColor;
 
 import java.util.regex.Matcher;
@@ -29,7 +32,7 @@ import java.util.regex.Pattern;
  */
 public class MarkupBuilder {
 
-    private static final Pattern MARKUP_PATTERN = Pattern.compile("\\[(txt|file|url|scmd|cmd):.+?\\]", Pattern.CASE_INSENSITIVE);
+    private static final Pattern MARKUP_PATTERN = Pattern.compile("\\[(txt|file|url|scmd|cmd):(.+?)\\]", Pattern.CASE_INSENSITIVE);
 
     private StringBuilder raw = new StringBuilder();
 
@@ -56,6 +59,9 @@ public class MarkupBuilder {
      * @return PowerMessage constructed from the supplied markup
      */
     public PowerMessage build() {
+        boolean metrics = PowerMessageMetrics.isEnabled();
+        boolean traced = MessageTrace.isActive();
+        long start = metrics || traced ? System.nanoTime() : 0L;
         PowerMessage powerMessage = new PowerMessage();
 
         Matcher matcher = MARKUP_PATTERN.matcher(this.raw);
@@ -64,11 +70,11 @@ public class MarkupBuilder {
         while (next < this.raw.length()) {
             if (matcher.find(next)) {
                 if (matcher.start() > next) {
-                    powerMessage.then(this.raw.substring(matcher.start(), next));
+                    powerMessage.then(this.raw.substring(next, matcher.start()));
                 }
 
-                String input = ChatColor.translateAlternateColorCodes('&', matcher.group(3));
-                switch (matcher.group(2)) {
+                String input = ChatColor.translateAlternateColorCodes('&', matcher.group(2));
+                switch (matcher.group(1).toLowerCase()) {
                     case "txt":
                         powerMessage.tooltip(input);
                         break;
@@ -86,7 +92,7 @@ public class MarkupBuilder {
                         break;
                 }
 
-                next = matcher.end() + 1;
+                next = matcher.end();
             } else {
                 // We're finished
                 powerMessage.then(this.raw.substring(next));
@@ -94,6 +100,12 @@ public class MarkupBuilder {
             }
 
         }
+        if (metrics) {
+            PowerMessageMetrics.recordMarkup(System.nanoTime() - start);
+        }
+        if (traced) {
+            MessageTrace.emit(TraceEvent.Type.MARKUP_PARSE, start, powerMessage.groupCount(), -1, 0);
+        }
         return powerMessage;
     }
 }
\ No newline at end of file
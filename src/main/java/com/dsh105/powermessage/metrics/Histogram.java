@@ -0,0 +1,138 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram with fixed, power-of-two buckets
+ * <p>
+ * Bucket {@code i} counts values in the range [2<sup>i-1</sup>, 2<sup>i</sup>), with bucket 0 holding values below one
+ */
+public class Histogram {
+
+    /**
+     * Number of buckets held by every histogram
+     */
+    public static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final StripedCounter count = new StripedCounter();
+    private final StripedCounter sum = new StripedCounter();
+
+    /**
+     * Records a value in this histogram
+     *
+     * @param value Value to record. Negative values are counted as zero
+     */
+    public void record(long value) {
+        long clamped = Math.max(0L, value);
+        buckets.incrementAndGet(bucketOf(clamped));
+        count.increment();
+        sum.add(clamped);
+    }
+
+    /**
+     * Gets the number of values recorded
+     *
+     * @return Number of recorded values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the sum of all values recorded
+     *
+     * @return Sum of recorded values
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Gets the mean of all values recorded
+     *
+     * @return Mean value, or zero if nothing has been recorded
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0L ? 0D : (double) getSum() / count;
+    }
+
+    /**
+     * Gets a copy of the bucket counts of this histogram
+     *
+     * @return Counts for each bucket
+     */
+    public long[] getBuckets() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = buckets.get(i);
+        }
+        return copy;
+    }
+
+    /**
+     * Estimates a percentile of the recorded values
+     * <p>
+     * The result is the upper bound of the bucket the percentile falls in
+     *
+     * @param percentile Percentile to estimate, between 0 and 100
+     * @return Estimated value at the given percentile
+     */
+    public long getPercentile(double percentile) {
+        long[] counts = getBuckets();
+        long total = 0L;
+        for (long bucketCount : counts) {
+            total += bucketCount;
+        }
+        if (total == 0L) {
+            return 0L;
+        }
+
+        long target = (long) Math.ceil(total * Math.min(100D, Math.max(0D, percentile)) / 100D);
+        long seen = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target && counts[i] > 0L) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    /**
+     * Clears all values recorded in this histogram
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0L);
+        }
+        count.reset();
+        sum.reset();
+    }
+
+    private static int bucketOf(long value) {
+        return Math.min(BUCKETS - 1, BUCKETS - Long.numberOfLeadingZeros(value));
+    }
+
+    private static long upperBound(int bucket) {
+        return bucket >= BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1L;
+    }
+}
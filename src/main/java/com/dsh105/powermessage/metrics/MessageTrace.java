@@ -0,0 +1,125 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.metrics;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Emits {@link com.dsh105.powermessage.metrics.TraceEvent}s for individual message builds and sends so that slow
+ * operations can be attributed to the code that caused them
+ * <p>
+ * Events are only created while at least one {@link com.dsh105.powermessage.metrics.TraceListener} is registered, and
+ * only for operations that take at least as long as the threshold set for their type. A listener may forward events
+ * to a profiler such as Java Flight Recorder
+ */
+public final class MessageTrace {
+
+    private static final CopyOnWriteArrayList<TraceListener> LISTENERS = new CopyOnWriteArrayList<>();
+    private static final AtomicLongArray THRESHOLDS = new AtomicLongArray(TraceEvent.Type.values().length);
+
+    private static volatile boolean active;
+    private static volatile boolean captureStackTraces;
+
+    private MessageTrace() {
+    }
+
+    /**
+     * Gets whether any listeners are registered to receive events
+     *
+     * @return True if events are being emitted
+     */
+    public static boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Registers a listener to receive events
+     *
+     * @param listener Listener to register
+     */
+    public static void addListener(TraceListener listener) {
+        LISTENERS.addIfAbsent(listener);
+        active = true;
+    }
+
+    /**
+     * Removes a listener so that it no longer receives events
+     *
+     * @param listener Listener to remove
+     */
+    public static void removeListener(TraceListener listener) {
+        LISTENERS.remove(listener);
+        active = !LISTENERS.isEmpty();
+    }
+
+    /**
+     * Sets the minimum duration an operation must take before an event is emitted for it
+     *
+     * @param type      Type of operation
+     * @param threshold Minimum duration
+     * @param unit      Unit of the duration
+     */
+    public static void setThreshold(TraceEvent.Type type, long threshold, TimeUnit unit) {
+        THRESHOLDS.set(type.ordinal(), unit.toNanos(threshold));
+    }
+
+    /**
+     * Gets the minimum duration an operation must take before an event is emitted for it
+     *
+     * @param type Type of operation
+     * @return Minimum duration, in nanoseconds
+     */
+    public static long getThreshold(TraceEvent.Type type) {
+        return THRESHOLDS.get(type.ordinal());
+    }
+
+    /**
+     * Sets whether a stack trace should be captured for each emitted event so that its call site can be identified
+     *
+     * @param capture True to capture stack traces
+     */
+    public static void setCaptureStackTraces(boolean capture) {
+        captureStackTraces = capture;
+    }
+
+    /**
+     * Emits an event to all registered listeners if the operation exceeded its threshold
+     *
+     * @param type           Type of operation
+     * @param startTime      Value of {@link System#nanoTime()} when the operation began
+     * @param snippetCount   Number of snippets in the message involved
+     * @param jsonLength     Length of the JSON involved, or -1 if no JSON was involved
+     * @param recipientCount Number of players the message was sent to
+     */
+    public static void emit(TraceEvent.Type type, long startTime, int snippetCount, int jsonLength, int recipientCount) {
+        if (!active) {
+            return;
+        }
+        long duration = System.nanoTime() - startTime;
+        if (duration < THRESHOLDS.get(type.ordinal())) {
+            return;
+        }
+
+        TraceEvent event = new TraceEvent(type, startTime, duration, snippetCount, jsonLength, recipientCount, captureStackTraces ? new Throwable() : null);
+        for (TraceListener listener : LISTENERS) {
+            listener.onEvent(event);
+        }
+    }
+}
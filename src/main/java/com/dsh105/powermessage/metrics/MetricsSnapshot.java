@@ -0,0 +1,181 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.metrics;
+
+/**
+ * An immutable view of the values recorded by {@link com.dsh105.powermessage.metrics.PowerMessageMetrics} at a point in time
+ */
+public class MetricsSnapshot {
+
+    private final long timestamp;
+    private final Distribution serializeNanos;
+    private final Distribution jsonLength;
+    private final long cacheHits;
+    private final long cacheMisses;
+    private final long packetsSent;
+    private final Distribution sendNanos;
+    private final Distribution markupNanos;
+    private final Distribution reflectionNanos;
+
+    protected MetricsSnapshot(Distribution serializeNanos, Distribution jsonLength, long cacheHits, long cacheMisses, long packetsSent, Distribution sendNanos, Distribution markupNanos, Distribution reflectionNanos) {
+        this.timestamp = System.currentTimeMillis();
+        this.serializeNanos = serializeNanos;
+        this.jsonLength = jsonLength;
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+        this.packetsSent = packetsSent;
+        this.sendNanos = sendNanos;
+        this.markupNanos = markupNanos;
+        this.reflectionNanos = reflectionNanos;
+    }
+
+    /**
+     * Gets the time this snapshot was taken
+     *
+     * @return Time this snapshot was taken, in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Gets the time spent converting messages to JSON
+     *
+     * @return Distribution of serialization times, in nanoseconds
+     */
+    public Distribution getSerializeNanos() {
+        return serializeNanos;
+    }
+
+    /**
+     * Gets the length of JSON produced when converting messages
+     *
+     * @return Distribution of JSON lengths, in characters
+     */
+    public Distribution getJsonLength() {
+        return jsonLength;
+    }
+
+    /**
+     * Gets the number of times cached JSON was reused
+     *
+     * @return Number of JSON cache hits
+     */
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * Gets the number of times JSON had to be generated
+     *
+     * @return Number of JSON cache misses
+     */
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    /**
+     * Gets the ratio of JSON cache hits to all JSON lookups
+     *
+     * @return Cache hit ratio between 0 and 1
+     */
+    public double getCacheHitRatio() {
+        long total = cacheHits + cacheMisses;
+        return total == 0L ? 0D : (double) cacheHits / total;
+    }
+
+    /**
+     * Gets the number of chat packets sent to players
+     *
+     * @return Number of packets sent
+     */
+    public long getPacketsSent() {
+        return packetsSent;
+    }
+
+    /**
+     * Gets the time spent sending messages to players
+     *
+     * @return Distribution of send times, in nanoseconds
+     */
+    public Distribution getSendNanos() {
+        return sendNanos;
+    }
+
+    /**
+     * Gets the time spent building messages from markup
+     *
+     * @return Distribution of markup build times, in nanoseconds
+     */
+    public Distribution getMarkupNanos() {
+        return markupNanos;
+    }
+
+    /**
+     * Gets the time spent looking up tooltip content through reflection
+     *
+     * @return Distribution of reflective lookup times, in nanoseconds
+     */
+    public Distribution getReflectionNanos() {
+        return reflectionNanos;
+    }
+
+    /**
+     * A summary of the values held by a {@link com.dsh105.powermessage.metrics.Histogram}
+     */
+    public static class Distribution {
+
+        private final long count;
+        private final long sum;
+        private final long p50;
+        private final long p99;
+        private final long[] buckets;
+
+        protected Distribution(Histogram histogram) {
+            this.count = histogram.getCount();
+            this.sum = histogram.getSum();
+            this.p50 = histogram.getPercentile(50D);
+            this.p99 = histogram.getPercentile(99D);
+            this.buckets = histogram.getBuckets();
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public double getMean() {
+            return count == 0L ? 0D : (double) sum / count;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long[] getBuckets() {
+            return buckets.clone();
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Records how much time and memory PowerMessage spends building and sending messages
+ * <p>
+ * Recording is disabled by default and can be enabled with the {@code powermessage.metrics} system property or
+ * {@link #setEnabled(boolean)}. While disabled, instrumented code paths skip all timing and recording
+ */
+public final class PowerMessageMetrics {
+
+    /**
+     * Name under which the metrics MXBean is registered
+     */
+    public static final String OBJECT_NAME = "com.dsh105.powermessage:type=Metrics";
+
+    private static volatile boolean enabled = Boolean.getBoolean("powermessage.metrics");
+
+    private static final Histogram SERIALIZE_NANOS = new Histogram();
+    private static final Histogram JSON_LENGTH = new Histogram();
+    private static final StripedCounter CACHE_HITS = new StripedCounter();
+    private static final StripedCounter CACHE_MISSES = new StripedCounter();
+    private static final StripedCounter PACKETS_SENT = new StripedCounter();
+    private static final Histogram SEND_NANOS = new Histogram();
+    private static final Histogram MARKUP_NANOS = new Histogram();
+    private static final Histogram REFLECTION_NANOS = new Histogram();
+
+    private PowerMessageMetrics() {
+    }
+
+    /**
+     * Gets whether metrics are currently being recorded
+     *
+     * @return True if metrics are being recorded
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether metrics should be recorded
+     *
+     * @param enabled True to record metrics
+     */
+    public static void setEnabled(boolean enabled) {
+        PowerMessageMetrics.enabled = enabled;
+    }
+
+    /**
+     * Records the conversion of a message to JSON
+     *
+     * @param nanos      Time taken, in nanoseconds
+     * @param jsonLength Length of the produced JSON
+     */
+    public static void recordSerialize(long nanos, int jsonLength) {
+        CACHE_MISSES.increment();
+        SERIALIZE_NANOS.record(nanos);
+        JSON_LENGTH.record(jsonLength);
+    }
+
+    /**
+     * Records the reuse of JSON that was previously generated
+     */
+    public static void recordCacheHit() {
+        CACHE_HITS.increment();
+    }
+
+    /**
+     * Records chat packets being sent
+     *
+     * @param nanos   Time taken, in nanoseconds
+     * @param packets Number of packets sent
+     */
+    public static void recordSend(long nanos, int packets) {
+        SEND_NANOS.record(nanos);
+        PACKETS_SENT.add(packets);
+    }
+
+    /**
+     * Records a message being built from markup
+     *
+     * @param nanos Time taken, in nanoseconds
+     */
+    public static void recordMarkup(long nanos) {
+        MARKUP_NANOS.record(nanos);
+    }
+
+    /**
+     * Records tooltip content being looked up through reflection
+     *
+     * @param nanos Time taken, in nanoseconds
+     */
+    public static void recordReflection(long nanos) {
+        REFLECTION_NANOS.record(nanos);
+    }
+
+    /**
+     * Takes a snapshot of all recorded metrics
+     *
+     * @return Snapshot of the current metrics
+     */
+    public static MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(new MetricsSnapshot.Distribution(SERIALIZE_NANOS), new MetricsSnapshot.Distribution(JSON_LENGTH), CACHE_HITS.sum(), CACHE_MISSES.sum(), PACKETS_SENT.sum(), new MetricsSnapshot.Distribution(SEND_NANOS), new MetricsSnapshot.Distribution(MARKUP_NANOS), new MetricsSnapshot.Distribution(REFLECTION_NANOS));
+    }
+
+    /**
+     * Clears all recorded metrics
+     */
+    public static void reset() {
+        SERIALIZE_NANOS.reset();
+        JSON_LENGTH.reset();
+        CACHE_HITS.reset();
+        CACHE_MISSES.reset();
+        PACKETS_SENT.reset();
+        SEND_NANOS.reset();
+        MARKUP_NANOS.reset();
+        REFLECTION_NANOS.reset();
+    }
+
+    /**
+     * Registers the metrics MXBean with the platform MBean server under {@link #OBJECT_NAME}
+     * <p>
+     * Registering more than once has no effect
+     */
+    public static void registerMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(new MXBean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException ignored) {
+            // Another plugin shading PowerMessage got there first
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register PowerMessage metrics", e);
+        }
+    }
+
+    /**
+     * Removes the metrics MXBean from the platform MBean server
+     */
+    public static void unregisterMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to unregister PowerMessage metrics", e);
+        }
+    }
+
+    private static class MXBean implements PowerMessageMetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return PowerMessageMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            PowerMessageMetrics.setEnabled(enabled);
+        }
+
+        @Override
+        public long getSerializeCount() {
+            return SERIALIZE_NANOS.getCount();
+        }
+
+        @Override
+        public double getSerializeMeanNanos() {
+            return SERIALIZE_NANOS.getMean();
+        }
+
+        @Override
+        public long getSerializeP99Nanos() {
+            return SERIALIZE_NANOS.getPercentile(99D);
+        }
+
+        @Override
+        public double getJsonLengthMean() {
+            return JSON_LENGTH.getMean();
+        }
+
+        @Override
+        public long getJsonLengthP99() {
+            return JSON_LENGTH.getPercentile(99D);
+        }
+
+        @Override
+        public long getCacheHits() {
+            return CACHE_HITS.sum();
+        }
+
+        @Override
+        public long getCacheMisses() {
+            return CACHE_MISSES.sum();
+        }
+
+        @Override
+        public double getCacheHitRatio() {
+            long hits = CACHE_HITS.sum();
+            long total = hits + CACHE_MISSES.sum();
+            return total == 0L ? 0D : (double) hits / total;
+        }
+
+        @Override
+        public long getPacketsSent() {
+            return PACKETS_SENT.sum();
+        }
+
+        @Override
+        public double getSendMeanNanos() {
+            return SEND_NANOS.getMean();
+        }
+
+        @Override
+        public long getSendP99Nanos() {
+            return SEND_NANOS.getPercentile(99D);
+        }
+
+        @Override
+        public long getMarkupBuildCount() {
+            return MARKUP_NANOS.getCount();
+        }
+
+        @Override
+        public double getMarkupMeanNanos() {
+            return MARKUP_NANOS.getMean();
+        }
+
+        @Override
+        public long getReflectionCount() {
+            return REFLECTION_NANOS.getCount();
+        }
+
+        @Override
+        public double getReflectionMeanNanos() {
+            return REFLECTION_NANOS.getMean();
+        }
+
+        @Override
+        public void reset() {
+            PowerMessageMetrics.reset();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.metrics;
+
+/**
+ * Management interface exposing PowerMessage metrics through JMX
+ */
+public interface PowerMessageMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getSerializeCount();
+
+    double getSerializeMeanNanos();
+
+    long getSerializeP99Nanos();
+
+    double getJsonLengthMean();
+
+    long getJsonLengthP99();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    double getCacheHitRatio();
+
+    long getPacketsSent();
+
+    double getSendMeanNanos();
+
+    long getSendP99Nanos();
+
+    long getMarkupBuildCount();
+
+    double getMarkupMeanNanos();
+
+    long getReflectionCount();
+
+    double getReflectionMeanNanos();
+
+    void reset();
+}
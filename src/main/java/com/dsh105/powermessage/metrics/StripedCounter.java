@@ -0,0 +1,76 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that spreads updates over several cells to avoid contention between threads
+ */
+public class StripedCounter {
+
+    // Each cell is padded out to its own cache line
+    private static final int PADDING = 8;
+    private static final int STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) << 1;
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    /**
+     * Adds one to this counter
+     */
+    public void increment() {
+        add(1L);
+    }
+
+    /**
+     * Adds a value to this counter
+     *
+     * @param value Value to add
+     */
+    public void add(long value) {
+        cells.getAndAdd(cellIndex(), value);
+    }
+
+    /**
+     * Gets the sum of all updates made to this counter
+     *
+     * @return Current value of this counter
+     */
+    public long sum() {
+        long sum = 0L;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    /**
+     * Resets this counter to zero
+     */
+    public void reset() {
+        for (int i = 0; i < STRIPES; i++) {
+            cells.set(i * PADDING, 0L);
+        }
+    }
+
+    private static int cellIndex() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (hash >>> 16 & (STRIPES - 1)) * PADDING;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.metrics;
+
+/**
+ * Represents a single traced operation, such as a message being serialized or sent
+ */
+public class TraceEvent {
+
+    /**
+     * Types of operation that can be traced
+     */
+    public enum Type {
+        /**
+         * A {@link com.dsh105.powermessage.core.PowerMessage} being converted to JSON
+         */
+        SERIALIZE,
+
+        /**
+         * A {@link com.dsh105.powermessage.core.PowerMessage} being sent to players
+         */
+        SEND,
+
+        /**
+         * A {@link com.dsh105.powermessage.core.PowerMessage} being built by a {@link com.dsh105.powermessage.markup.MarkupBuilder}
+         */
+        MARKUP_PARSE
+    }
+
+    private final Type type;
+    private final long startTime;
+    private final long durationNanos;
+    private final int snippetCount;
+    private final int jsonLength;
+    private final int recipientCount;
+    private final String threadName;
+    private final Throwable origin;
+
+    protected TraceEvent(Type type, long startTime, long durationNanos, int snippetCount, int jsonLength, int recipientCount, Throwable origin) {
+        this.type = type;
+        this.startTime = startTime;
+        this.durationNanos = durationNanos;
+        this.snippetCount = snippetCount;
+        this.jsonLength = jsonLength;
+        this.recipientCount = recipientCount;
+        this.threadName = Thread.currentThread().getName();
+        this.origin = origin;
+    }
+
+    /**
+     * Gets the type of operation traced
+     *
+     * @return Type of operation
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the value of {@link System#nanoTime()} when the operation began
+     *
+     * @return Start time of the operation
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Gets the time taken by the operation
+     *
+     * @return Duration in nanoseconds
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * Gets the number of snippets in the message involved
+     *
+     * @return Number of snippets
+     */
+    public int getSnippetCount() {
+        return snippetCount;
+    }
+
+    /**
+     * Gets the length of the JSON involved
+     *
+     * @return Length of the JSON, or -1 if no JSON was involved
+     */
+    public int getJsonLength() {
+        return jsonLength;
+    }
+
+    /**
+     * Gets the number of players the message was sent to
+     *
+     * @return Number of recipients, or 0 if the message was not sent
+     */
+    public int getRecipientCount() {
+        return recipientCount;
+    }
+
+    /**
+     * Gets the name of the thread that performed the operation
+     *
+     * @return Name of the thread
+     */
+    public String getThreadName() {
+        return threadName;
+    }
+
+    /**
+     * Gets the first stack frame outside of PowerMessage that led to this operation
+     * <p>
+     * Call sites are only available if stack traces are being captured by {@link com.dsh105.powermessage.metrics.MessageTrace}
+     *
+     * @return Call site of the operation, or null if unavailable
+     */
+    public StackTraceElement getCallSite() {
+        if (origin == null) {
+            return null;
+        }
+        for (StackTraceElement element : origin.getStackTrace()) {
+            if (!element.getClassName().startsWith("com.dsh105.powermessage.")) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "TraceEvent{type=" + type + ", durationNanos=" + durationNanos + ", snippetCount=" + snippetCount + ", jsonLength=" + jsonLength + ", recipientCount=" + recipientCount + ", thread=" + threadName + ", callSite=" + getCallSite() + "}";
+    }
+}
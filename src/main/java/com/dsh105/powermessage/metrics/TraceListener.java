@@ -0,0 +1,33 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.metrics;
+
+/**
+ * Receives events emitted by {@link com.dsh105.powermessage.metrics.MessageTrace}
+ */
+public interface TraceListener {
+
+    /**
+     * Called when a traced operation exceeds the threshold for its type
+     * <p>
+     * This is called on the thread that performed the operation and should return quickly
+     *
+     * @param event Event describing the operation
+     */
+    void onEvent(TraceEvent event);
+}
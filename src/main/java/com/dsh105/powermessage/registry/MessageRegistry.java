@@ -0,0 +1,347 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.registry;
+
+import com.dsh105.powermessage.core.PowerMessage;
+import com.dsh105.powermessage.core.PowerSnippet;
+import com.dsh105.powermessage.markup.MarkupBuilder;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.bukkit.entity.Player;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds a set of {@link com.dsh105.powermessage.core.PowerMessage}s by identifier, loaded from YAML files that can
+ * be reloaded while the server is running
+ * <p>
+ * Each file maps message identifiers (nested keys are joined with {@code .}) to either markup understood by
+ * {@link com.dsh105.powermessage.markup.MarkupBuilder} or a serialized PowerMessage. When a file is reloaded, only
+ * the entries that changed are rebuilt and swapped in; all other entries keep their converted JSON. Lookups never
+ * block, and a message that is being sent while its entry is replaced is sent as it was before the change
+ */
+public class MessageRegistry implements Closeable {
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<File, Set<String>> fileEntries = new HashMap<>();
+    private final Object loadLock = new Object();
+
+    private WatchService watchService;
+    private Thread watchThread;
+
+    static {
+        ConfigurationSerialization.registerClass(PowerMessage.class);
+        ConfigurationSerialization.registerClass(PowerSnippet.class);
+    }
+
+    /**
+     * Gets a copy of a registered message that can be freely modified
+     * <p>
+     * Copies share their content with the registered message until they are modified
+     *
+     * @param id Identifier of the message
+     * @return A copy of the message, or null if no message is registered under the given identifier
+     */
+    public PowerMessage get(String id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            return (PowerMessage) entry.message.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Gets whether a message is registered under an identifier
+     *
+     * @param id Identifier to check
+     * @return True if a message is registered under the identifier
+     */
+    public boolean contains(String id) {
+        return entries.containsKey(id);
+    }
+
+    /**
+     * Gets the identifiers of all registered messages
+     *
+     * @return Identifiers of all registered messages
+     */
+    public Set<String> getIds() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    /**
+     * Sends a registered message to a group of Bukkit {@link org.bukkit.entity.Player}s
+     *
+     * @param id      Identifier of the message
+     * @param players Whom to send the message to
+     * @return True if the message exists and was sent
+     */
+    public boolean send(String id, Player... players) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return false;
+        }
+        entry.message.send(players);
+        return true;
+    }
+
+    /**
+     * Sends a registered message to a Bukkit {@link org.bukkit.command.CommandSender}
+     *
+     * @param id     Identifier of the message
+     * @param sender Whom to send the message to
+     * @return True if the message exists and was sent
+     */
+    public boolean send(String id, CommandSender sender) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return false;
+        }
+        entry.message.send(sender);
+        return true;
+    }
+
+    /**
+     * Registers a message under an identifier, replacing any existing message
+     * <p>
+     * The message should not be modified once it has been registered
+     *
+     * @param id      Identifier to register the message under
+     * @param message Message to register
+     */
+    public void register(String id, PowerMessage message) {
+        entries.put(id, new Entry(null, message.toJson(), message));
+    }
+
+    /**
+     * Removes a message from this registry
+     *
+     * @param id Identifier of the message to remove
+     */
+    public void unregister(String id) {
+        entries.remove(id);
+    }
+
+    /**
+     * Loads every YAML file in a directory
+     *
+     * @param directory Directory to load files from
+     * @return Number of entries that were added or changed
+     * @throws IOException                   If a file could not be read
+     * @throws InvalidConfigurationException If a file is not valid YAML
+     */
+    public int loadDirectory(File directory) throws IOException, InvalidConfigurationException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            throw new IOException(directory + " is not a directory");
+        }
+
+        int changed = 0;
+        for (File file : files) {
+            if (isMessageFile(file)) {
+                changed += load(file);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Loads or reloads a YAML file of messages
+     * <p>
+     * Entries whose content has not changed since the file was last loaded are left untouched, and entries that
+     * have been removed from the file are unregistered
+     *
+     * @param file File to load
+     * @return Number of entries that were added or changed
+     * @throws IOException                   If the file could not be read
+     * @throws InvalidConfigurationException If the file is not valid YAML
+     */
+    public int load(File file) throws IOException, InvalidConfigurationException {
+        YamlConfiguration config = new YamlConfiguration();
+        config.load(file);
+
+        synchronized (loadLock) {
+            File key = file.getAbsoluteFile();
+            Set<String> previousIds = fileEntries.get(key);
+            Set<String> ids = new HashSet<>();
+            int changed = 0;
+
+            for (String id : config.getKeys(true)) {
+                Object value = config.get(id);
+                String source;
+                if (value instanceof String) {
+                    source = (String) value;
+                } else if (value instanceof PowerMessage) {
+                    source = ((PowerMessage) value).toJson();
+                } else {
+                    continue;
+                }
+                ids.add(id);
+
+                Entry existing = entries.get(id);
+                if (existing != null && key.equals(existing.file) && existing.source.equals(source)) {
+                    continue;
+                }
+
+                PowerMessage message = value instanceof PowerMessage ? (PowerMessage) value : new MarkupBuilder().withText(source).build();
+                entries.put(id, new Entry(key, source, message));
+                changed++;
+            }
+
+            if (previousIds != null) {
+                for (String id : previousIds) {
+                    if (!ids.contains(id)) {
+                        removeFromFile(id, key);
+                    }
+                }
+            }
+            fileEntries.put(key, ids);
+            return changed;
+        }
+    }
+
+    /**
+     * Unregisters every message that was loaded from a file
+     *
+     * @param file File to unload
+     */
+    public void unload(File file) {
+        synchronized (loadLock) {
+            File key = file.getAbsoluteFile();
+            Set<String> ids = fileEntries.remove(key);
+            if (ids != null) {
+                for (String id : ids) {
+                    removeFromFile(id, key);
+                }
+            }
+        }
+    }
+
+    private void removeFromFile(String id, File file) {
+        Entry entry = entries.get(id);
+        if (entry != null && file.equals(entry.file)) {
+            entries.remove(id, entry);
+        }
+    }
+
+    /**
+     * Watches a directory for changes, reloading or unloading YAML files as they are modified, created or deleted
+     * <p>
+     * Changes are picked up on a background thread until this registry is closed
+     *
+     * @param directory Directory to watch
+     * @throws IOException If the directory could not be watched
+     */
+    public synchronized void watch(final File directory) throws IOException {
+        if (watchService == null) {
+            watchService = FileSystems.getDefault().newWatchService();
+            final WatchService service = watchService;
+            watchThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    processEvents(service);
+                }
+            }, "PowerMessage Registry Watcher");
+            watchThread.setDaemon(true);
+            watchThread.start();
+        }
+        directory.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    private void processEvents(WatchService service) {
+        while (true) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    continue;
+                }
+
+                File file = directory.resolve((Path) event.context()).toFile();
+                if (!isMessageFile(file) && event.kind() != StandardWatchEventKinds.ENTRY_DELETE) {
+                    continue;
+                }
+
+                try {
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                        unload(file);
+                    } else {
+                        load(file);
+                    }
+                } catch (IOException | InvalidConfigurationException e) {
+                    // Keep the previous messages until the file is fixed
+                    e.printStackTrace();
+                }
+            }
+            key.reset();
+        }
+    }
+
+    /**
+     * Stops watching all directories
+     *
+     * @throws IOException If the underlying watch service could not be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watchThread.interrupt();
+            watchService = null;
+            watchThread = null;
+        }
+    }
+
+    private static boolean isMessageFile(File file) {
+        String name = file.getName().toLowerCase();
+        return file.isFile() && (name.endsWith(".yml") || name.endsWith(".yaml"));
+    }
+
+    private static class Entry {
+
+        private final File file;
+        private final String source;
+        private final PowerMessage message;
+
+        public Entry(File file, String source, PowerMessage message) {
+            this.file = file;
+            this.source = source;
+            this.message = message;
+
+            // Convert now so that senders never have to, and so that lookups can clone it concurrently
+            message.freeze();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.send;
+
+import com.dsh105.powermessage.core.PowerMessage;
+import com.dsh105.powermessage.dialect.ChatDialect;
+import com.dsh105.powermessage.dialect.ChatDialects;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Converts and sends {@link com.dsh105.powermessage.core.PowerMessage}s away from the calling thread
+ * <p>
+ * Messages are converted to JSON and chat packets on an {@link java.util.concurrent.Executor}. If a plugin is
+ * provided, the final write to each player's connection is handed back to the server thread; otherwise packets are
+ * written from the executor, which is safe for the server's network layer
+ */
+public class AsyncSender {
+
+    private static final int MAX_QUEUED_TASKS = 1024;
+
+    private static AsyncSender defaultSender;
+
+    private final Plugin plugin;
+    private final Executor executor;
+
+    /**
+     * Constructs a new AsyncSender that writes packets from the default executor
+     */
+    public AsyncSender() {
+        this(null, getDefaultExecutor());
+    }
+
+    /**
+     * Constructs a new AsyncSender that writes packets on the server thread
+     *
+     * @param plugin Plugin to schedule packet writes with
+     */
+    public AsyncSender(Plugin plugin) {
+        this(plugin, getDefaultExecutor());
+    }
+
+    /**
+     * Constructs a new AsyncSender
+     *
+     * @param plugin   Plugin to schedule packet writes on the server thread with, or null to write packets from the executor
+     * @param executor Executor to convert messages with
+     */
+    public AsyncSender(Plugin plugin, Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        this.plugin = plugin;
+        this.executor = executor;
+    }
+
+    /**
+     * Gets the sender used by {@link com.dsh105.powermessage.core.PowerMessage#sendAsync(org.bukkit.entity.Player...)}
+     *
+     * @return The default AsyncSender
+     */
+    public static synchronized AsyncSender getDefault() {
+        if (defaultSender == null) {
+            defaultSender = new AsyncSender();
+        }
+        return defaultSender;
+    }
+
+    /**
+     * Sets the sender used by {@link com.dsh105.powermessage.core.PowerMessage#sendAsync(org.bukkit.entity.Player...)}
+     *
+     * @param sender New default sender
+     */
+    public static synchronized void setDefault(AsyncSender sender) {
+        defaultSender = sender;
+    }
+
+    /**
+     * Gets the executor shared by all AsyncSenders that were not given their own
+     * <p>
+     * Virtual threads are used when the running JVM supports them. Otherwise, a bounded pool of daemon threads is
+     * used, which falls back to converting on the calling thread if it becomes saturated
+     *
+     * @return The default executor
+     */
+    public static Executor getDefaultExecutor() {
+        return DefaultExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * Sends a message to a group of players
+     *
+     * @param message Message to send
+     * @param players Whom to send the message to
+     * @return A future that completes once the message has been written to all players
+     */
+    public ListenableFuture<SendResult> send(PowerMessage message, Player... players) {
+        return send(message, Arrays.asList(players));
+    }
+
+    /**
+     * Sends a message to a group of players
+     * <p>
+     * The message should not be modified until the returned future has completed
+     *
+     * @param message Message to send
+     * @param players Whom to send the message to
+     * @return A future that completes once the message has been written to all players
+     */
+    public ListenableFuture<SendResult> send(final PowerMessage message, Collection<? extends Player> players) {
+        final List<Player> recipients = new ArrayList<>(players);
+        final SettableFuture<SendResult> future = SettableFuture.create();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        final ChatDialect dialect = ChatDialects.getCurrent();
+                        final Object content = dialect.prepare(message);
+                        Runnable write = new Runnable() {
+                            @Override
+                            public void run() {
+                                future.set(write(dialect, content, recipients));
+                            }
+                        };
+
+                        if (plugin == null) {
+                            write.run();
+                        } else if (!plugin.isEnabled()) {
+                            future.setException(new IllegalStateException(plugin.getName() + " is disabled"));
+                        } else {
+                            plugin.getServer().getScheduler().runTask(plugin, write);
+                        }
+                    } catch (Throwable e) {
+                        future.setException(e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.setException(e);
+        }
+        return future;
+    }
+
+    private SendResult write(ChatDialect dialect, Object content, List<Player> recipients) {
+        List<Player> delivered = new ArrayList<>(recipients.size());
+        Map<Player, Throwable> failures = new HashMap<>();
+        for (Player player : recipients) {
+            if (!player.isOnline()) {
+                failures.put(player, new IllegalStateException(player.getName() + " is no longer online"));
+                continue;
+            }
+
+            try {
+                ChatCoalescer.flushPending(player);
+                dialect.write(player, content);
+                delivered.add(player);
+            } catch (Exception e) {
+                failures.put(player, e);
+            }
+        }
+        return new SendResult(recipients.size(), delivered, failures);
+    }
+
+    private static class DefaultExecutorHolder {
+
+        private static final Executor EXECUTOR = createExecutor();
+
+        private static Executor createExecutor() {
+            // Executors#newVirtualThreadPerTaskExecutor is only available on newer JVMs
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (Executor) factory.invoke(null);
+            } catch (ReflectiveOperationException ignored) {
+                // Fall back to a bounded pool
+            }
+
+            int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(MAX_QUEUED_TASKS),
+                    new ThreadFactoryBuilder().setNameFormat("PowerMessage Async Sender #%d").setDaemon(true).build(),
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.send;
+
+import com.dsh105.powermessage.core.PowerMessage;
+import com.dsh105.powermessage.dialect.ChatDialect;
+import com.dsh105.powermessage.dialect.ChatDialects;
+import com.dsh105.powermessage.metrics.PowerMessageMetrics;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Buffers the {@link com.dsh105.powermessage.core.PowerMessage}s sent to players whose connection is not currently
+ * writable, and sends them at the start of the next tick as few chat packets as possible, with each message on its
+ * own line
+ * <p>
+ * Messages to a player whose connection is writable, and who has no messages buffered, are sent immediately, so
+ * coalescing only takes place for players that are already falling behind.
+ * <p>
+ * <b>Ordering:</b> messages sent to a player are always delivered in the order they were sent, and any other message
+ * sent to the player through PowerMessage first sends the messages buffered for them. Packets sent to the player by
+ * other means, such as by the server or other plugins, are <i>not</i> delayed and may arrive before buffered
+ * messages. Call {@link #flush(org.bukkit.entity.Player)} before sending a packet that must arrive after them, or
+ * send messages with {@link com.dsh105.powermessage.core.PowerMessage#send(org.bukkit.entity.Player...)} where
+ * ordering with other packets matters
+ */
+public class ChatCoalescer {
+
+    /**
+     * Maximum length of the JSON in a single chat packet
+     */
+    public static final int MAX_JSON_LENGTH = 32767;
+
+    private static final String JOIN_PREFIX = "{\"text\":\"\",\"extra\":[";
+    private static final String JOIN_SEPARATOR = ",{\"text\":\"\\n\"},";
+    private static final String JOIN_SUFFIX = "]}";
+
+    // Coalescers that may be holding messages, checked before anything else is sent to a player
+    private static final Set<ChatCoalescer> PENDING = Collections.newSetFromMap(new ConcurrentHashMap<ChatCoalescer, Boolean>());
+
+    private final Plugin plugin;
+    private final ConcurrentHashMap<UUID, Buffer> buffers = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flushScheduled.set(false);
+            PENDING.remove(ChatCoalescer.this);
+            flushAll();
+        }
+    };
+
+    /**
+     * Constructs a new ChatCoalescer
+     *
+     * @param plugin Plugin to schedule flushes with
+     */
+    public ChatCoalescer(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Sends a message to a group of players, queueing it until the start of the next tick for those whose connection
+     * is not writable or who already have messages queued
+     * <p>
+     * The message is converted immediately, so later changes to it do not affect what is sent
+     *
+     * @param message Message to send
+     * @param players Whom to send the message to
+     */
+    public void send(PowerMessage message, Player... players) {
+        if (players.length == 0) {
+            return;
+        }
+
+        ChatDialect dialect = ChatDialects.getCurrent();
+        String content = dialect.isJsonSupported() ? message.toJson() : message.getContent();
+        Object packet = null;
+        boolean buffered = false;
+        for (Player player : players) {
+            if (!buffers.containsKey(player.getUniqueId()) && dialect.isWritable(player)) {
+                if (packet == null) {
+                    packet = dialect.isJsonSupported() ? message.toPacket() : content;
+                }
+                flushPending(player);
+                dialect.write(player, packet);
+                continue;
+            }
+
+            buffered = true;
+            // A buffer may be flushed between looking it up and adding to it, in which case a new one is needed
+            while (true) {
+                Buffer buffer = buffers.get(player.getUniqueId());
+                if (buffer == null) {
+                    Buffer created = new Buffer(player);
+                    buffer = buffers.putIfAbsent(player.getUniqueId(), created);
+                    if (buffer == null) {
+                        buffer = created;
+                    }
+                }
+                if (buffer.add(content)) {
+                    break;
+                }
+                buffers.remove(player.getUniqueId(), buffer);
+            }
+        }
+
+        if (!buffered) {
+            return;
+        }
+        PENDING.add(this);
+        if (flushScheduled.compareAndSet(false, true)) {
+            plugin.getServer().getScheduler().runTask(plugin, flushTask);
+        }
+    }
+
+    /**
+     * Immediately sends all messages buffered for a player
+     *
+     * @param player Player to flush messages for
+     */
+    public void flush(Player player) {
+        Buffer buffer = buffers.remove(player.getUniqueId());
+        if (buffer != null) {
+            buffer.flush(ChatDialects.getCurrent());
+        }
+    }
+
+    /**
+     * Immediately sends the messages buffered for a player by every ChatCoalescer
+     * <p>
+     * Called before PowerMessage sends anything else to a player, so that it arrives after the buffered messages
+     *
+     * @param player Player to flush messages for
+     */
+    public static void flushPending(Player player) {
+        if (PENDING.isEmpty()) {
+            return;
+        }
+        for (ChatCoalescer coalescer : PENDING) {
+            coalescer.flush(player);
+        }
+    }
+
+    /**
+     * Immediately sends all buffered messages to all players
+     */
+    public void flushAll() {
+        ChatDialect dialect = ChatDialects.getCurrent();
+        for (Map.Entry<UUID, Buffer> entry : buffers.entrySet()) {
+            if (buffers.remove(entry.getKey(), entry.getValue())) {
+                entry.getValue().flush(dialect);
+            }
+        }
+    }
+
+    /**
+     * Joins messages into as few JSON chat messages as possible, with each message on its own line
+     * <p>
+     * No joined message is longer than {@link #MAX_JSON_LENGTH}, unless a single message is already longer
+     *
+     * @param messages Raw JSON of the messages to join, in order
+     * @return Raw JSON of the joined messages, in order
+     */
+    public static List<String> join(List<String> messages) {
+        List<String> joinedMessages = new ArrayList<>();
+        StringBuilder builder = new StringBuilder(JOIN_PREFIX);
+        int joined = 0;
+        String first = null;
+        for (String content : messages) {
+            int length = builder.length() + JOIN_SEPARATOR.length() + content.length() + JOIN_SUFFIX.length();
+            if (joined > 0 && length > MAX_JSON_LENGTH) {
+                joinedMessages.add(joined == 1 ? first : builder.append(JOIN_SUFFIX).toString());
+                builder.setLength(JOIN_PREFIX.length());
+                joined = 0;
+            }
+            if (joined > 0) {
+                builder.append(JOIN_SEPARATOR);
+            } else {
+                first = content;
+            }
+            builder.append(content);
+            joined++;
+        }
+        if (joined > 0) {
+            // A single message doesn't need to be wrapped
+            joinedMessages.add(joined == 1 ? first : builder.append(JOIN_SUFFIX).toString());
+        }
+        return joinedMessages;
+    }
+
+    private static class Buffer {
+
+        private final Player player;
+        private final List<String> pending = new ArrayList<>();
+        private boolean flushed;
+
+        public Buffer(Player player) {
+            this.player = player;
+        }
+
+        public synchronized boolean add(String content) {
+            if (flushed) {
+                return false;
+            }
+            pending.add(content);
+            return true;
+        }
+
+        public synchronized void flush(ChatDialect dialect) {
+            flushed = true;
+            if (pending.isEmpty() || !player.isOnline()) {
+                pending.clear();
+                return;
+            }
+
+            boolean metrics = PowerMessageMetrics.isEnabled();
+            long start = metrics ? System.nanoTime() : 0L;
+            int packets = 0;
+            if (dialect.isJsonSupported()) {
+                for (String json : join(pending)) {
+                    dialect.write(player, dialect.prepareJson(json));
+                    packets++;
+                }
+            } else {
+                for (String content : pending) {
+                    dialect.write(player, content);
+                    packets++;
+                }
+            }
+            pending.clear();
+
+            if (metrics) {
+                PowerMessageMetrics.recordSend(System.nanoTime() - start, packets);
+            }
+        }
+    }
+}
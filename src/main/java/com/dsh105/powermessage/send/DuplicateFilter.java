@@ -0,0 +1,247 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dsh105.powermessage.send;
+
+import com.dsh105.powermessage.core.PowerMessage;
+import com.dsh105.powermessage.metrics.StripedCounter;
+import org.bukkit.ChatColor;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suppresses {@link com.dsh105.powermessage.core.PowerMessage}s that repeat a message recently sent to the same
+ * player
+ * <p>
+ * The most recent distinct messages sent to each player are remembered, up to a fixed number per player. A message
+ * that is identical to one of them and sent within the window is either dropped, or counted and shown once the window
+ * ends as a single copy of the message followed by the number of times it was sent, e.g. "(x3)"
+ */
+public class DuplicateFilter implements Listener {
+
+    /**
+     * Determines what happens to suppressed messages
+     */
+    public enum Mode {
+
+        /**
+         * Repeated messages are discarded
+         */
+        DROP,
+
+        /**
+         * Repeated messages are counted, and the count is shown once the window ends
+         */
+        COUNT
+    }
+
+    private static final int DEFAULT_HISTORY = 8;
+    private static final long TICK_MILLIS = 50L;
+
+    private final Plugin plugin;
+    private final long windowNanos;
+    private final int history;
+    private final Mode mode;
+    private final Map<UUID, Ring> rings = new ConcurrentHashMap<>();
+    private final StripedCounter suppressed = new StripedCounter();
+
+    /**
+     * Constructs a new DuplicateFilter that remembers the last 8 messages sent to each player
+     *
+     * @param plugin Plugin to register listeners and schedule counter updates with
+     * @param window Length of time in which repeated messages are suppressed
+     * @param unit   Unit of the window
+     * @param mode   What to do with suppressed messages
+     */
+    public DuplicateFilter(Plugin plugin, long window, TimeUnit unit, Mode mode) {
+        this(plugin, window, unit, DEFAULT_HISTORY, mode);
+    }
+
+    /**
+     * Constructs a new DuplicateFilter
+     *
+     * @param plugin  Plugin to register listeners and schedule counter updates with
+     * @param window  Length of time in which repeated messages are suppressed
+     * @param unit    Unit of the window
+     * @param history Number of distinct messages remembered for each player
+     * @param mode    What to do with suppressed messages
+     */
+    public DuplicateFilter(Plugin plugin, long window, TimeUnit unit, int history, Mode mode) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+        if (history < 1) {
+            throw new IllegalArgumentException("History must be at least 1");
+        }
+        this.plugin = plugin;
+        this.windowNanos = unit.toNanos(window);
+        this.history = history;
+        this.mode = mode;
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+
+    /**
+     * Gets the number of messages that were suppressed
+     *
+     * @return Number of suppressed messages
+     */
+    public long getSuppressed() {
+        return suppressed.sum();
+    }
+
+    /**
+     * Sends a message to a group of players, suppressing it for those that have recently received it
+     * <p>
+     * Should be called from the server thread
+     *
+     * @param message Message to send
+     * @param players Whom to send the message to
+     */
+    public void send(PowerMessage message, Player... players) {
+        for (Player player : players) {
+            send(message, player);
+        }
+    }
+
+    /**
+     * Sends a message to a player, unless they have recently received it
+     * <p>
+     * Should be called from the server thread
+     *
+     * @param message Message to send
+     * @param player  Whom to send the message to
+     * @return True if the message was sent, false if it was suppressed
+     */
+    public boolean send(PowerMessage message, Player player) {
+        Ring ring = rings.get(player.getUniqueId());
+        if (ring == null) {
+            ring = new Ring(history);
+            rings.put(player.getUniqueId(), ring);
+        }
+
+        String json = message.toJson();
+        long now = System.nanoTime();
+        Entry entry = ring.find(json, now);
+        if (entry == null) {
+            ring.add(new Entry(json, now));
+            message.send(player);
+            return true;
+        }
+
+        suppressed.increment();
+        entry.count++;
+        if (mode == Mode.COUNT) {
+            entry.message = message;
+            if (!entry.updateScheduled) {
+                entry.updateScheduled = true;
+                scheduleUpdate(player, entry, now);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Forgets the messages sent to a player, so that none of them are suppressed
+     *
+     * @param player Player to forget messages for
+     */
+    public void forget(Player player) {
+        rings.remove(player.getUniqueId());
+    }
+
+    /**
+     * Stops suppressing messages
+     */
+    public void close() {
+        HandlerList.unregisterAll(this);
+        rings.clear();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        forget(event.getPlayer());
+    }
+
+    private void scheduleUpdate(final Player player, final Entry entry, long now) {
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(entry.windowStart + windowNanos - now);
+        plugin.getServer().getScheduler().runTaskLater(plugin, new Runnable() {
+            @Override
+            public void run() {
+                entry.updateScheduled = false;
+                if (!player.isOnline() || entry.count == entry.shown) {
+                    return;
+                }
+                entry.shown = entry.count;
+                // Further repeats are counted towards the next update
+                entry.windowStart = System.nanoTime();
+                PowerMessage.concat(entry.message, new PowerMessage(" (x" + entry.count + ")").colour(ChatColor.GRAY)).send(player);
+            }
+        }, Math.max(1L, remainingMillis / TICK_MILLIS));
+    }
+
+    private static class Entry {
+
+        private final String json;
+        private final int hash;
+        private long windowStart;
+        private int count = 1;
+        private int shown = 1;
+        private PowerMessage message;
+        private boolean updateScheduled;
+
+        public Entry(String json, long windowStart) {
+            this.json = json;
+            this.hash = json.hashCode();
+            this.windowStart = windowStart;
+        }
+    }
+
+    // The most recent distinct messages sent to a player, oldest first to be replaced
+    private class Ring {
+
+        private final Entry[] entries;
+        private int next;
+
+        public Ring(int size) {
+            this.entries = new Entry[size];
+        }
+
+        public Entry find(String json, long now) {
+            int hash = json.hashCode();
+            for (Entry entry : entries) {
+                if (entry != null && entry.hash == hash && now - entry.windowStart < windowNanos && entry.json.equals(json)) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        public void add(Entry entry) {
+            entries[next] = entry;
+            next = (next + 1) % entries.length;
+        }
+    }
+}
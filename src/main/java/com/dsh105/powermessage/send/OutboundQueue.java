@@ -0,0 +1,296 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dsh105.powermessage.send;
+
+import com.dsh105.powermessage.core.PowerMessage;
+import com.dsh105.powermessage.dialect.ChatDialect;
+import com.dsh105.powermessage.dialect.ChatDialects;
+import com.dsh105.powermessage.metrics.StripedCounter;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds back low priority {@link com.dsh105.powermessage.core.PowerMessage}s while a player's connection is backed
+ * up, rather than adding to the data already waiting to be sent to them
+ * <p>
+ * Messages are written immediately while the connection is writable. Otherwise, they are queued and reduced according
+ * to the queue's {@link Policy}, and written once the connection recovers. Messages that must always be delivered
+ * should be sent directly instead
+ */
+public class OutboundQueue {
+
+    /**
+     * Determines how messages are reduced while they are held back
+     */
+    public enum Policy {
+
+        /**
+         * Only the most recent message is kept
+         */
+        KEEP_LATEST,
+
+        /**
+         * Messages identical to one already queued are discarded
+         */
+        DROP_DUPLICATES,
+
+        /**
+         * Messages are kept, and joined into as few chat messages as possible when written
+         */
+        MERGE
+    }
+
+    private static final int DEFAULT_MAX_QUEUED = 64;
+
+    private final Plugin plugin;
+    private final Policy policy;
+    private final int maxQueued;
+    private final Map<UUID, PlayerQueue> queues = new ConcurrentHashMap<>();
+    private final StripedCounter dropped = new StripedCounter();
+    private final StripedCounter coalesced = new StripedCounter();
+    private BukkitTask drainTask;
+
+    /**
+     * Constructs a new OutboundQueue
+     *
+     * @param plugin Plugin to schedule writes with
+     * @param policy Policy used to reduce held back messages
+     */
+    public OutboundQueue(Plugin plugin, Policy policy) {
+        this(plugin, policy, DEFAULT_MAX_QUEUED);
+    }
+
+    /**
+     * Constructs a new OutboundQueue
+     *
+     * @param plugin    Plugin to schedule writes with
+     * @param policy    Policy used to reduce held back messages
+     * @param maxQueued Maximum number of messages held back for each player, after which the oldest are dropped
+     */
+    public OutboundQueue(Plugin plugin, Policy policy, int maxQueued) {
+        if (maxQueued < 1) {
+            throw new IllegalArgumentException("Maximum queue size must be at least 1");
+        }
+        this.plugin = plugin;
+        this.policy = policy;
+        this.maxQueued = maxQueued;
+    }
+
+    /**
+     * Gets the policy used to reduce held back messages
+     *
+     * @return Policy of this queue
+     */
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Gets the number of messages that were discarded without being sent
+     *
+     * @return Number of dropped messages
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Gets the number of messages that were combined with or replaced by another queued message
+     *
+     * @return Number of coalesced messages
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Gets the number of messages currently held back for a player
+     *
+     * @param player Player to check
+     * @return Number of queued messages
+     */
+    public int getQueued(Player player) {
+        PlayerQueue queue = queues.get(player.getUniqueId());
+        return queue == null ? 0 : queue.size();
+    }
+
+    /**
+     * Sends a message to a group of players, holding it back for any whose connection is not writable
+     * <p>
+     * Should be called from the server thread
+     *
+     * @param message Message to send
+     * @param players Whom to send the message to
+     */
+    public void send(PowerMessage message, Player... players) {
+        if (players.length == 0) {
+            return;
+        }
+
+        ChatDialect dialect = ChatDialects.getCurrent();
+        if (!dialect.isJsonSupported()) {
+            message.send(players);
+            return;
+        }
+
+        String json = message.toJson();
+        Object packet = null;
+        for (Player player : players) {
+            PlayerQueue queue = queues.get(player.getUniqueId());
+            if (queue == null && dialect.isWritable(player)) {
+                if (packet == null) {
+                    packet = message.toPacket();
+                }
+                ChatCoalescer.flushPending(player);
+                dialect.write(player, packet);
+                continue;
+            }
+
+            if (queue == null) {
+                queue = new PlayerQueue(player);
+                queues.put(player.getUniqueId(), queue);
+            }
+            queue.add(json);
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * Writes all messages held back for a player, regardless of whether their connection is writable
+     *
+     * @param player Player to flush messages for
+     */
+    public void flush(Player player) {
+        PlayerQueue queue = queues.remove(player.getUniqueId());
+        if (queue != null) {
+            queue.flush(ChatDialects.getCurrent());
+        }
+    }
+
+    /**
+     * Stops holding back messages, writing any that are queued
+     */
+    public synchronized void close() {
+        if (drainTask != null) {
+            drainTask.cancel();
+            drainTask = null;
+        }
+        ChatDialect dialect = ChatDialects.getCurrent();
+        for (PlayerQueue queue : queues.values()) {
+            queue.flush(dialect);
+        }
+        queues.clear();
+    }
+
+    private synchronized void scheduleDrain() {
+        if (drainTask == null && !queues.isEmpty()) {
+            drainTask = plugin.getServer().getScheduler().runTaskTimer(plugin, new Runnable() {
+                @Override
+                public void run() {
+                    drain();
+                }
+            }, 1L, 1L);
+        }
+    }
+
+    private void drain() {
+        ChatDialect dialect = ChatDialects.getCurrent();
+        Iterator<PlayerQueue> iterator = queues.values().iterator();
+        while (iterator.hasNext()) {
+            PlayerQueue queue = iterator.next();
+            if (!queue.player.isOnline()) {
+                dropped.add(queue.size());
+                iterator.remove();
+            } else if (dialect.isWritable(queue.player)) {
+                iterator.remove();
+                queue.flush(dialect);
+            }
+        }
+
+        synchronized (this) {
+            if (queues.isEmpty() && drainTask != null) {
+                drainTask.cancel();
+                drainTask = null;
+            }
+        }
+    }
+
+    private class PlayerQueue {
+
+        private final Player player;
+        private final LinkedList<String> pending = new LinkedList<>();
+
+        public PlayerQueue(Player player) {
+            this.player = player;
+        }
+
+        public synchronized int size() {
+            return pending.size();
+        }
+
+        public synchronized void add(String json) {
+            switch (policy) {
+                case KEEP_LATEST:
+                    if (!pending.isEmpty()) {
+                        coalesced.add(pending.size());
+                        pending.clear();
+                    }
+                    break;
+                case DROP_DUPLICATES:
+                    if (pending.contains(json)) {
+                        coalesced.increment();
+                        return;
+                    }
+                    break;
+                case MERGE:
+                    if (!pending.isEmpty()) {
+                        coalesced.increment();
+                    }
+                    break;
+            }
+
+            pending.add(json);
+            if (pending.size() > maxQueued) {
+                pending.removeFirst();
+                dropped.increment();
+            }
+        }
+
+        public synchronized void flush(ChatDialect dialect) {
+            if (!player.isOnline()) {
+                dropped.add(pending.size());
+                pending.clear();
+                return;
+            }
+            List<String> messages = policy == Policy.MERGE ? ChatCoalescer.join(pending) : new ArrayList<>(pending);
+            pending.clear();
+            ChatCoalescer.flushPending(player);
+            for (String json : messages) {
+                dialect.write(player, dialect.prepareJson(json));
+            }
+        }
+    }
+}
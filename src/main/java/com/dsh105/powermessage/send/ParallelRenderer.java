@@ -0,0 +1,224 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dsh105.powermessage.send;
+
+import com.dsh105.powermessage.core.PowerMessage;
+import com.dsh105.powermessage.dialect.ChatDialect;
+import com.dsh105.powermessage.dialect.ChatDialects;
+import com.dsh105.powermessage.exception.InvalidMessageException;
+import com.dsh105.powermessage.metrics.PowerMessageMetrics;
+import com.google.common.base.Function;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Builds and converts a personalised {@link com.dsh105.powermessage.core.PowerMessage} for each of a group of players
+ * in parallel
+ * <p>
+ * Recipients are split across a {@link java.util.concurrent.ForkJoinPool}. Each message is built and converted by the
+ * thread that renders it, so the given function must return a new message for every player and must only read state
+ * that is safe to access away from the server thread. The converted messages are handed back to the calling thread in
+ * the same order as the recipients
+ * <p>
+ * A function that clones a shared template must only do so once the template has been prepared with
+ * {@link com.dsh105.powermessage.core.PowerMessage#freeze()}, as cloning a message that is not frozen modifies it.
+ * The overloads that accept a template freeze it before rendering begins
+ */
+public class ParallelRenderer {
+
+    private static final int DEFAULT_THRESHOLD = 32;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    /**
+     * Constructs a new ParallelRenderer that uses the default pool
+     */
+    public ParallelRenderer() {
+        this(getDefaultPool(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Constructs a new ParallelRenderer
+     *
+     * @param pool      Pool to render messages in
+     * @param threshold Maximum number of players rendered by a single task before the work is split further
+     */
+    public ParallelRenderer(ForkJoinPool pool, int threshold) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null");
+        }
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Threshold must be at least 1");
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Gets the pool shared by all ParallelRenderers that were not given their own
+     *
+     * @return The default pool
+     */
+    public static ForkJoinPool getDefaultPool() {
+        return DefaultPoolHolder.POOL;
+    }
+
+    /**
+     * Builds and converts a message for each of a group of players
+     *
+     * @param players  Players to render messages for
+     * @param renderer Function that builds the message for a player
+     * @return Converted messages, ready to be written with the current {@link com.dsh105.powermessage.dialect.ChatDialect}, in the same order as the players
+     */
+    public List<Object> render(Collection<? extends Player> players, Function<? super Player, ? extends PowerMessage> renderer) {
+        Player[] recipients = players.toArray(new Player[players.size()]);
+        Object[] rendered = new Object[recipients.length];
+        if (recipients.length > 0) {
+            pool.invoke(new RenderTask(ChatDialects.getCurrent(), renderer, recipients, rendered, 0, recipients.length));
+        }
+        return Arrays.asList(rendered);
+    }
+
+    /**
+     * Personalises a copy of a template for each of a group of players, and converts it
+     * <p>
+     * The template is frozen before rendering begins and should not be modified until this method returns
+     *
+     * @param players      Players to render messages for
+     * @param template     Message that each player's copy is made from
+     * @param personaliser Modifies the copy made for a player
+     * @return Converted messages, ready to be written with the current {@link com.dsh105.powermessage.dialect.ChatDialect}, in the same order as the players
+     */
+    public List<Object> render(Collection<? extends Player> players, PowerMessage template, Personaliser personaliser) {
+        return render(players, fromTemplate(template, personaliser));
+    }
+
+    /**
+     * Builds, converts and sends a message to each of a group of players
+     * <p>
+     * Messages are written from the calling thread once all of them have been rendered
+     *
+     * @param players  Whom to send messages to
+     * @param renderer Function that builds the message for a player
+     */
+    public void send(Collection<? extends Player> players, Function<? super Player, ? extends PowerMessage> renderer) {
+        boolean metrics = PowerMessageMetrics.isEnabled();
+        long start = metrics ? System.nanoTime() : 0L;
+        List<Player> recipients = new ArrayList<>(players);
+        List<Object> rendered = render(recipients, renderer);
+        ChatDialect dialect = ChatDialects.getCurrent();
+        for (int i = 0; i < recipients.size(); i++) {
+            ChatCoalescer.flushPending(recipients.get(i));
+            dialect.write(recipients.get(i), rendered.get(i));
+        }
+        if (metrics) {
+            PowerMessageMetrics.recordSend(System.nanoTime() - start, recipients.size());
+        }
+    }
+
+    /**
+     * Personalises a copy of a template for each of a group of players, and sends it to them
+     * <p>
+     * The template is frozen before rendering begins and should not be modified until this method returns
+     *
+     * @param players      Whom to send messages to
+     * @param template     Message that each player's copy is made from
+     * @param personaliser Modifies the copy made for a player
+     */
+    public void send(Collection<? extends Player> players, PowerMessage template, Personaliser personaliser) {
+        send(players, fromTemplate(template, personaliser));
+    }
+
+    private static Function<Player, PowerMessage> fromTemplate(final PowerMessage template, final Personaliser personaliser) {
+        // Render tasks clone the template concurrently, which only reads a frozen message
+        template.freeze();
+        return new Function<Player, PowerMessage>() {
+            @Override
+            public PowerMessage apply(Player player) {
+                PowerMessage copy;
+                try {
+                    copy = (PowerMessage) template.clone();
+                } catch (CloneNotSupportedException e) {
+                    throw new InvalidMessageException("Failed to copy message", e);
+                }
+                personaliser.personalise(copy, player);
+                return copy;
+            }
+        };
+    }
+
+    /**
+     * Modifies the copy of a template made for a particular player
+     */
+    public interface Personaliser {
+
+        /**
+         * Modifies the copy of a template made for a player
+         *
+         * @param message Copy of the template, which can be freely modified
+         * @param player  Player the message is being rendered for
+         */
+        void personalise(PowerMessage message, Player player);
+    }
+
+    private class RenderTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ChatDialect dialect;
+        private final Function<? super Player, ? extends PowerMessage> renderer;
+        private final Player[] recipients;
+        private final Object[] rendered;
+        private final int start;
+        private final int end;
+
+        public RenderTask(ChatDialect dialect, Function<? super Player, ? extends PowerMessage> renderer, Player[] recipients, Object[] rendered, int start, int end) {
+            this.dialect = dialect;
+            this.renderer = renderer;
+            this.recipients = recipients;
+            this.rendered = rendered;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= threshold) {
+                for (int i = start; i < end; i++) {
+                    rendered[i] = dialect.prepare(renderer.apply(recipients[i]));
+                }
+                return;
+            }
+
+            int middle = (start + end) >>> 1;
+            invokeAll(new RenderTask(dialect, renderer, recipients, rendered, start, middle),
+                    new RenderTask(dialect, renderer, recipients, rendered, middle, end));
+        }
+    }
+
+    private static class DefaultPoolHolder {
+
+        private static final ForkJoinPool POOL = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+}
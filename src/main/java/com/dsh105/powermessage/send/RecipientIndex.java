@@ -0,0 +1,385 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dsh105.powermessage.send;
+
+import com.dsh105.powermessage.core.PowerMessage;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.*;
+import org.bukkit.plugin.Plugin;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Maintains sets of online players by permission, world and location, so that messages can be broadcast to a subset
+ * of players without checking every online player each time
+ * <p>
+ * Players are indexed as they join, leave, change world and move. Permission sets are created the first time a
+ * permission is queried. Bukkit does not announce permission changes, so {@link #refresh(org.bukkit.entity.Player)}
+ * should be called after changing a player's permissions
+ */
+public class RecipientIndex implements Listener {
+
+    // Players are grouped into cells the size of a chunk for range queries
+    private static final int CELL_SHIFT = 4;
+
+    private final Plugin plugin;
+    private final ConcurrentMap<String, Set<Player>> permissions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, Set<Player>> worlds = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Cell, Set<Player>> cells = new ConcurrentHashMap<>();
+    private final Map<UUID, Cell> playerCells = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new RecipientIndex, indexing all players that are currently online
+     *
+     * @param plugin Plugin to register the index's listeners with
+     */
+    public RecipientIndex(Plugin plugin) {
+        this.plugin = plugin;
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            add(player);
+        }
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+
+    /**
+     * Stops maintaining this index
+     */
+    public void close() {
+        HandlerList.unregisterAll(this);
+        permissions.clear();
+        worlds.clear();
+        cells.clear();
+        playerCells.clear();
+    }
+
+    /**
+     * Gets the online players that have a permission
+     *
+     * @param permission Permission to check for
+     * @return An unmodifiable, live view of the players that have the permission
+     */
+    public Set<Player> getPlayersWithPermission(String permission) {
+        Set<Player> players = permissions.get(permission);
+        if (players == null) {
+            Set<Player> created = newPlayerSet();
+            players = putIfAbsent(permissions, permission, created);
+            if (players == created) {
+                for (Player player : plugin.getServer().getOnlinePlayers()) {
+                    if (player.hasPermission(permission)) {
+                        created.add(player);
+                    }
+                }
+            }
+        }
+        return Collections.unmodifiableSet(players);
+    }
+
+    /**
+     * Gets the online players in a world
+     *
+     * @param world World to retrieve players for
+     * @return An unmodifiable, live view of the players in the world
+     */
+    public Set<Player> getPlayersInWorld(World world) {
+        Set<Player> players = worlds.get(world.getUID());
+        return players == null ? Collections.<Player>emptySet() : Collections.unmodifiableSet(players);
+    }
+
+    /**
+     * Gets the online players within a certain distance of a location
+     *
+     * @param centre Location to measure from
+     * @param radius Maximum distance from the location, in blocks
+     * @return Players within range of the location
+     */
+    public List<Player> getPlayersInRange(Location centre, double radius) {
+        UUID world = centre.getWorld().getUID();
+        double radiusSquared = radius * radius;
+        int minX = (int) Math.floor(centre.getX() - radius) >> CELL_SHIFT;
+        int maxX = (int) Math.floor(centre.getX() + radius) >> CELL_SHIFT;
+        int minZ = (int) Math.floor(centre.getZ() - radius) >> CELL_SHIFT;
+        int maxZ = (int) Math.floor(centre.getZ() + radius) >> CELL_SHIFT;
+
+        List<Player> result = new ArrayList<>();
+        Set<Player> worldPlayers = worlds.get(world);
+        if (worldPlayers == null) {
+            return result;
+        }
+
+        // Checking every player in the world is cheaper once the range covers more cells than there are players
+        long cellCount = ((long) maxX - minX + 1) * ((long) maxZ - minZ + 1);
+        if (cellCount > worldPlayers.size()) {
+            addInRange(result, worldPlayers, world, centre, radiusSquared);
+            return result;
+        }
+
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                Set<Player> players = cells.get(new Cell(world, x, z));
+                if (players != null) {
+                    addInRange(result, players, world, centre, radiusSquared);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void addInRange(List<Player> result, Set<Player> players, UUID world, Location centre, double radiusSquared) {
+        for (Player player : players) {
+            Location location = player.getLocation();
+            if (location.getWorld().getUID().equals(world) && location.distanceSquared(centre) <= radiusSquared) {
+                result.add(player);
+            }
+        }
+    }
+
+    /**
+     * Sends a message to all online players that have a permission
+     *
+     * @param message    Message to send
+     * @param permission Permission that players must have
+     */
+    public void sendToPermission(PowerMessage message, String permission) {
+        send(message, getPlayersWithPermission(permission));
+    }
+
+    /**
+     * Sends a message to all online players in a world
+     *
+     * @param message Message to send
+     * @param world   World to send the message to
+     */
+    public void sendToWorld(PowerMessage message, World world) {
+        send(message, getPlayersInWorld(world));
+    }
+
+    /**
+     * Sends a message to all online players within a certain distance of a location
+     *
+     * @param message Message to send
+     * @param centre  Location to measure from
+     * @param radius  Maximum distance from the location, in blocks
+     */
+    public void sendInRange(PowerMessage message, Location centre, double radius) {
+        send(message, getPlayersInRange(centre, radius));
+    }
+
+    private void send(PowerMessage message, Collection<Player> players) {
+        Player[] recipients = players.toArray(new Player[players.size()]);
+        if (recipients.length > 0) {
+            message.send(recipients);
+        }
+    }
+
+    /**
+     * Updates the permission sets a player belongs to
+     * <p>
+     * Should be called whenever a player's permissions are changed
+     *
+     * @param player Player to update
+     */
+    public void refresh(Player player) {
+        for (Map.Entry<String, Set<Player>> entry : permissions.entrySet()) {
+            if (player.isOnline() && player.hasPermission(entry.getKey())) {
+                entry.getValue().add(player);
+            } else {
+                entry.getValue().remove(player);
+            }
+        }
+    }
+
+    /**
+     * Updates the permission sets of all online players
+     */
+    public void refreshAll() {
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            refresh(player);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        add(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        Player player = event.getPlayer();
+        for (Set<Player> players : permissions.values()) {
+            players.remove(player);
+        }
+        for (Set<Player> players : worlds.values()) {
+            players.remove(player);
+        }
+        Cell cell = playerCells.remove(player.getUniqueId());
+        if (cell != null) {
+            removeFromCell(cell, player);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChangeWorld(PlayerChangedWorldEvent event) {
+        relocate(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onRespawn(PlayerRespawnEvent event) {
+        final Player player = event.getPlayer();
+        final Location location = event.getRespawnLocation();
+        // The player is only moved to the respawn location after the event
+        plugin.getServer().getScheduler().runTask(plugin, new Runnable() {
+            @Override
+            public void run() {
+                // The player may have left before the task ran
+                if (playerCells.containsKey(player.getUniqueId())) {
+                    relocate(player, location);
+                }
+            }
+        });
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onMove(PlayerMoveEvent event) {
+        onMoved(event);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onTeleport(PlayerTeleportEvent event) {
+        onMoved(event);
+    }
+
+    private void onMoved(PlayerMoveEvent event) {
+        Location from = event.getFrom();
+        Location to = event.getTo();
+        // Most movements stay within the same cell
+        if (to == null || (from.getWorld() == to.getWorld() && from.getBlockX() >> CELL_SHIFT == to.getBlockX() >> CELL_SHIFT && from.getBlockZ() >> CELL_SHIFT == to.getBlockZ() >> CELL_SHIFT)) {
+            return;
+        }
+        move(event.getPlayer(), to);
+    }
+
+    private void add(Player player) {
+        for (Map.Entry<String, Set<Player>> entry : permissions.entrySet()) {
+            if (player.hasPermission(entry.getKey())) {
+                entry.getValue().add(player);
+            }
+        }
+        addToWorld(player);
+        move(player, player.getLocation());
+    }
+
+    private void relocate(Player player, Location location) {
+        for (Set<Player> players : worlds.values()) {
+            players.remove(player);
+        }
+        addToWorld(player);
+        move(player, location);
+    }
+
+    private void addToWorld(Player player) {
+        UUID world = player.getWorld().getUID();
+        Set<Player> players = worlds.get(world);
+        if (players == null) {
+            players = putIfAbsent(worlds, world, newPlayerSet());
+        }
+        players.add(player);
+    }
+
+    private void move(Player player, Location location) {
+        Cell cell = new Cell(location.getWorld().getUID(), location.getBlockX() >> CELL_SHIFT, location.getBlockZ() >> CELL_SHIFT);
+        Cell previous = playerCells.put(player.getUniqueId(), cell);
+        if (cell.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            removeFromCell(previous, player);
+        }
+
+        Set<Player> players;
+        do {
+            players = cells.get(cell);
+            if (players == null) {
+                players = putIfAbsent(cells, cell, newPlayerSet());
+            }
+            players.add(player);
+            // Retried if the cell was removed as empty before the player was added to it
+        } while (cells.get(cell) != players);
+    }
+
+    private void removeFromCell(Cell cell, Player player) {
+        Set<Player> players = cells.get(cell);
+        if (players != null) {
+            players.remove(player);
+            if (players.isEmpty()) {
+                // A player entering the cell at the same time adds it again, see move
+                cells.remove(cell, players);
+            }
+        }
+    }
+
+    // Number of cells that currently hold at least one player
+    int getCellCount() {
+        return cells.size();
+    }
+
+    private static Set<Player> newPlayerSet() {
+        return Collections.newSetFromMap(new ConcurrentHashMap<Player, Boolean>());
+    }
+
+    private static <K> Set<Player> putIfAbsent(ConcurrentMap<K, Set<Player>> map, K key, Set<Player> value) {
+        Set<Player> existing = map.putIfAbsent(key, value);
+        return existing != null ? existing : value;
+    }
+
+    private static class Cell {
+
+        private final UUID world;
+        private final int x;
+        private final int z;
+
+        public Cell(UUID world, int x, int z) {
+            this.world = world;
+            this.x = x;
+            this.z = z;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Cell)) {
+                return false;
+            }
+            Cell other = (Cell) o;
+            return x == other.x && z == other.z && world.equals(other.world);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * world.hashCode() + x) + z;
+        }
+    }
+}
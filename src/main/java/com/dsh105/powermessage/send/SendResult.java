@@ -0,0 +1,78 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.send;
+
+import org.bukkit.entity.Player;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents the outcome of sending a {@link com.dsh105.powermessage.core.PowerMessage} to a group of players
+ */
+public class SendResult {
+
+    private final int recipients;
+    private final List<Player> delivered;
+    private final Map<Player, Throwable> failures;
+
+    public SendResult(int recipients, List<Player> delivered, Map<Player, Throwable> failures) {
+        this.recipients = recipients;
+        this.delivered = Collections.unmodifiableList(delivered);
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * Gets the number of players the message was addressed to
+     *
+     * @return Number of recipients
+     */
+    public int getRecipients() {
+        return recipients;
+    }
+
+    /**
+     * Gets the players the message was successfully written to
+     *
+     * @return Players that received the message
+     */
+    public List<Player> getDelivered() {
+        return delivered;
+    }
+
+    /**
+     * Gets the players the message could not be written to, along with the reason for each
+     * <p>
+     * Players that went offline before the message could be written are included with an {@link IllegalStateException}
+     *
+     * @return Players that did not receive the message
+     */
+    public Map<Player, Throwable> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Gets whether the message was written to every recipient
+     *
+     * @return True if no failures occurred
+     */
+    public boolean isComplete() {
+        return failures.isEmpty();
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage;
+
+import org.bukkit.Location;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.scheduler.BukkitScheduler;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+/**
+ * Minimal stand-ins for the parts of a Bukkit server used by the tests, so that they can run without a server
+ * <p>
+ * Each stub answers the methods the tests rely on and returns a default value for everything else
+ */
+public final class Stubs {
+
+    // Tasks scheduled with any stub plugin, run by runScheduledTasks
+    private static final List<Runnable> TASKS = new ArrayList<>();
+
+    private Stubs() {
+    }
+
+    /**
+     * Runs every task scheduled so far with a stub plugin, as if the next tick had begun
+     */
+    public static void runScheduledTasks() {
+        List<Runnable> tasks = new ArrayList<>(TASKS);
+        TASKS.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+
+    /**
+     * Creates a world with a random identifier
+     *
+     * @param name Name of the world
+     * @return A new world
+     */
+    public static World world(final String name) {
+        final UUID uid = UUID.randomUUID();
+        return stub(World.class, new Handler(name) {
+            @Override
+            protected Object answer(String method, Object[] args) {
+                switch (method) {
+                    case "getName":
+                        return name;
+                    case "getUID":
+                        return uid;
+                    default:
+                        return NO_ANSWER;
+                }
+            }
+        });
+    }
+
+    /**
+     * Creates a plugin running on a server with the given online players
+     *
+     * @param online Players that are online
+     * @return A new plugin
+     */
+    public static Plugin plugin(final Player... online) {
+        final PluginManager pluginManager = stub(PluginManager.class, new Handler("PluginManager"));
+        final BukkitScheduler scheduler = stub(BukkitScheduler.class, new Handler("Scheduler") {
+            @Override
+            protected Object answer(String method, Object[] args) {
+                if (method.startsWith("runTask")) {
+                    TASKS.add((Runnable) args[1]);
+                }
+                return NO_ANSWER;
+            }
+        });
+        final Server server = stub(Server.class, new Handler("Server") {
+            @Override
+            protected Object answer(String method, Object[] args) {
+                switch (method) {
+                    case "getOnlinePlayers":
+                        return online;
+                    case "getPluginManager":
+                        return pluginManager;
+                    case "getScheduler":
+                        return scheduler;
+                    case "isPrimaryThread":
+                        return true;
+                    default:
+                        return NO_ANSWER;
+                }
+            }
+        });
+        return stub(Plugin.class, new Handler("Plugin") {
+            @Override
+            protected Object answer(String method, Object[] args) {
+                switch (method) {
+                    case "getServer":
+                        return server;
+                    case "isEnabled":
+                        return true;
+                    default:
+                        return NO_ANSWER;
+                }
+            }
+        });
+    }
+
+    private static <T> T stub(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    /**
+     * A player that records the chat messages sent to it
+     */
+    public static class StubPlayer extends Handler {
+
+        private final UUID uniqueId = UUID.randomUUID();
+        private final Set<String> permissions = new HashSet<>();
+        private final List<String> messages = new ArrayList<>();
+        private final Player player;
+        private Location location;
+
+        public StubPlayer(String name, Location location) {
+            super(name);
+            this.location = location;
+            this.player = stub(Player.class, this);
+        }
+
+        public Player getPlayer() {
+            return player;
+        }
+
+        public StubPlayer withPermission(String permission) {
+            permissions.add(permission);
+            return this;
+        }
+
+        public void setLocation(Location location) {
+            this.location = location;
+        }
+
+        public List<String> getMessages() {
+            return messages;
+        }
+
+        @Override
+        protected Object answer(String method, Object[] args) {
+            switch (method) {
+                case "getName":
+                case "getDisplayName":
+                    return name;
+                case "getUniqueId":
+                    return uniqueId;
+                case "getLocation":
+                    return location;
+                case "getWorld":
+                    return location.getWorld();
+                case "isOnline":
+                    return true;
+                case "hasPermission":
+                    return args[0] instanceof String && permissions.contains(args[0]);
+                case "sendMessage":
+                    if (args[0] instanceof String[]) {
+                        Collections.addAll(messages, (String[]) args[0]);
+                    } else {
+                        messages.add((String) args[0]);
+                    }
+                    return null;
+                default:
+                    return NO_ANSWER;
+            }
+        }
+    }
+
+    static class Handler implements InvocationHandler {
+
+        protected static final Object NO_ANSWER = new Object();
+
+        protected final String name;
+
+        public Handler(String name) {
+            this.name = name;
+        }
+
+        protected Object answer(String method, Object[] args) {
+            return NO_ANSWER;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return name;
+            }
+
+            Object answer = answer(method.getName(), args);
+            if (answer != NO_ANSWER) {
+                if (answer instanceof Object[] && Collection.class.isAssignableFrom(method.getReturnType())) {
+                    // Later versions of Bukkit return a collection of online players
+                    return Arrays.asList((Object[]) answer);
+                }
+                return answer;
+            }
+
+            Class<?> type = method.getReturnType();
+            if (type == boolean.class) {
+                return false;
+            } else if (type == int.class || type == long.class || type == double.class || type == float.class || type == short.class || type == byte.class || type == char.class) {
+                return Array.get(Array.newInstance(type, 1), 0);
+            }
+            return null;
+        }
+    }
+}
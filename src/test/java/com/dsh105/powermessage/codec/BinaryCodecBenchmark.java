@@ -0,0 +1,88 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.codec;
+
+import com.dsh105.powermessage.core.PowerMessage;
+import org.bukkit.craftbukkit.libs.com.google.gson.JsonElement;
+import org.bukkit.craftbukkit.libs.com.google.gson.JsonParser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Compares the time taken to encode and decode a message with {@link BinaryCodec} against converting it to JSON and
+ * parsing it again
+ * <p>
+ * Run from the test classpath with {@code java com.dsh105.powermessage.codec.BinaryCodecBenchmark [iterations]}
+ */
+public class BinaryCodecBenchmark {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // Prevents the results of each round from being optimised away
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        PowerMessage message = new PowerMessage("&6[Server] ").tooltip("Sent by the server")
+                .then("&aWelcome to the server, ").then("&lplayer").suggest("/msg player ")
+                .then("! Read the ").then("&nrules").link("http://example.com/rules").tooltip("Open the rules", "in your browser")
+                .then(" or type ").then("/help").perform("/help").tooltip("Run /help");
+
+        ByteBuffer encoded = BinaryCodec.encode(message);
+        byte[] json = message.toJson().getBytes(UTF_8);
+        System.out.println("Binary: " + encoded.remaining() + " bytes, JSON: " + json.length + " bytes");
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink = BinaryCodec.encode(message);
+            }
+            long binaryEncode = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                encoded.rewind();
+                sink = BinaryCodec.decode(encoded);
+            }
+            long binaryDecode = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                // Skips the cached JSON of the message
+                sink = message.appendJson(new StringBuilder(json.length)).toString().getBytes(UTF_8);
+            }
+            long jsonEncode = System.nanoTime() - start;
+
+            JsonParser parser = new JsonParser();
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                JsonElement element = parser.parse(new String(json, UTF_8));
+                sink = element;
+            }
+            long jsonDecode = System.nanoTime() - start;
+
+            System.out.println("Round " + (round + 1) + ": encode " + perOp(binaryEncode, iterations) + " ns (JSON " + perOp(jsonEncode, iterations)
+                    + " ns), decode " + perOp(binaryDecode, iterations) + " ns (JSON " + perOp(jsonDecode, iterations) + " ns)");
+        }
+    }
+
+    private static long perOp(long nanos, int iterations) {
+        return nanos / iterations;
+    }
+}
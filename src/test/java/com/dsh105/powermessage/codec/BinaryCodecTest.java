@@ -0,0 +1,113 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.codec;
+
+import com.dsh105.powermessage.core.PowerMessage;
+import com.dsh105.powermessage.exception.InvalidMessageException;
+import org.bukkit.ChatColor;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryCodecTest {
+
+    private static PowerMessage roundTrip(PowerMessage message) {
+        ByteBuffer buffer = BinaryCodec.encode(message);
+        PowerMessage decoded = BinaryCodec.decode(buffer);
+        assertFalse(buffer.hasRemaining());
+        return decoded;
+    }
+
+    @Test
+    public void plainText() {
+        PowerMessage message = new PowerMessage("Hello world");
+        assertEquals(message.toJson(), roundTrip(message).toJson());
+    }
+
+    @Test
+    public void coloursAndFormats() {
+        PowerMessage message = new PowerMessage("&a&lGreen bold ").then("&cred").then("mixed").colour(ChatColor.BOLD, ChatColor.RED, ChatColor.BLUE);
+        PowerMessage decoded = roundTrip(message);
+        assertEquals(message.toJson(), decoded.toJson());
+        assertEquals(message.getContent(), decoded.getContent());
+    }
+
+    @Test
+    public void events() {
+        PowerMessage message = new PowerMessage("héllo ").then("link").link("http://example.com").tooltip("Open the site").then("run").perform("/spawn");
+        assertEquals(message.toJson(), roundTrip(message).toJson());
+    }
+
+    @Test
+    public void combinedTooltips() {
+        PowerMessage message = new PowerMessage("hover").tooltip("line a").tooltip("line b");
+        PowerMessage decoded = roundTrip(message);
+        assertEquals(message.toJson(), decoded.toJson());
+        assertEquals(message.getSnippet(0).getActionEvents(), decoded.getSnippet(0).getActionEvents());
+    }
+
+    @Test
+    public void encodeIntoExistingBuffer() {
+        PowerMessage message = new PowerMessage("first").then("second").suggest("/help");
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        buffer.put((byte) 42);
+        int size = BinaryCodec.encode(message, buffer);
+        assertEquals(1 + size, buffer.position());
+
+        buffer.flip();
+        assertEquals(42, buffer.get());
+        assertEquals(message.toJson(), BinaryCodec.decode(buffer).toJson());
+    }
+
+    @Test
+    public void smallerThanJson() throws Exception {
+        PowerMessage message = new PowerMessage("&aWelcome ").then("here").link("http://example.com").tooltip("Open the site").then(" and ").then("here").link("http://example.com").tooltip("Open the site");
+        assertTrue(BinaryCodec.encode(message).remaining() < message.toJson().getBytes("UTF-8").length);
+    }
+
+    @Test(expected = InvalidMessageException.class)
+    public void negativeStringCount() {
+        BinaryCodec.decode(ByteBuffer.wrap(new byte[]{1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F}));
+    }
+
+    @Test(expected = InvalidMessageException.class)
+    public void oversizedStringCount() {
+        BinaryCodec.decode(ByteBuffer.wrap(new byte[]{1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07}));
+    }
+
+    @Test(expected = InvalidMessageException.class)
+    public void negativeSnippetCount() {
+        BinaryCodec.decode(ByteBuffer.wrap(new byte[]{1, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F}));
+    }
+
+    @Test(expected = InvalidMessageException.class)
+    public void truncated() {
+        ByteBuffer buffer = BinaryCodec.encode(new PowerMessage("truncated").link("http://example.com"));
+        buffer.limit(buffer.limit() - 1);
+        BinaryCodec.decode(buffer);
+    }
+
+    @Test(expected = InvalidMessageException.class)
+    public void unsupportedVersion() {
+        BinaryCodec.decode(ByteBuffer.wrap(new byte[]{2, 0, 0}));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.core;
+
+import com.dsh105.powermessage.markup.MarkupBuilder;
+import org.bukkit.ChatColor;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the core message-building paths stay within a fixed number of bytes allocated per call
+ */
+public class AllocationBudgetTest {
+
+    private static final int WARMUP = 20000;
+    private static final int ITERATIONS = 2000;
+
+    @Test
+    public void thenPlainText() {
+        assertBudget("then(String)", 512, new Runnable() {
+            @Override
+            public void run() {
+                new PowerMessage().then("Plain text");
+            }
+        });
+    }
+
+    @Test
+    public void toJsonWarmCache() {
+        final PowerMessage powerMessage = new PowerMessage("&aGreen ").then("link").link("http://example.com").tooltip("Hover");
+        powerMessage.toJson();
+        assertBudget("toJson()", 0, new Runnable() {
+            @Override
+            public void run() {
+                powerMessage.toJson();
+            }
+        });
+    }
+
+    @Test
+    public void getContentWarmCache() {
+        final PowerMessage powerMessage = new PowerMessage("&aGreen ").then("&lbold").then("plain");
+        powerMessage.getContent();
+        assertBudget("getContent()", 0, new Runnable() {
+            @Override
+            public void run() {
+                powerMessage.getContent();
+            }
+        });
+    }
+
+    @Test
+    public void groupColour() {
+        final PowerMessage powerMessage = new PowerMessage("one").then("two").then("three");
+        final Group group = powerMessage.group();
+        assertBudget("Group.colour", 256, new Runnable() {
+            @Override
+            public void run() {
+                group.colour(ChatColor.RED, ChatColor.BOLD);
+            }
+        });
+    }
+
+    @Test
+    public void groupLink() {
+        final PowerMessage powerMessage = new PowerMessage("one").then("two").then("three");
+        final Group group = powerMessage.group();
+        assertBudget("Group.link", 1024, new Runnable() {
+            @Override
+            public void run() {
+                group.link("http://example.com");
+            }
+        });
+    }
+
+    @Test
+    public void markupBuild() {
+        final MarkupBuilder builder = new MarkupBuilder().withText("&aWelcome [url:http://example.com]here[txt:Open the site]");
+        assertBudget("MarkupBuilder.build()", 4096, new Runnable() {
+            @Override
+            public void run() {
+                builder.build();
+            }
+        });
+    }
+
+    @Test
+    public void contentFollowsSnippetEdits() {
+        PowerMessage powerMessage = new PowerMessage("before");
+        assertEquals("before", powerMessage.getContent());
+        powerMessage.getSnippet(0).setText("after");
+        assertEquals("after", powerMessage.getContent());
+        assertTrue(powerMessage.toJson().contains("after"));
+    }
+
+    private static void assertBudget(String path, long budget, Runnable task) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        if (!allocations.isThreadAllocatedMemorySupported() || !allocations.isThreadAllocatedMemoryEnabled()) {
+            return;
+        }
+
+        for (int i = 0; i < WARMUP; i++) {
+            task.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            task.run();
+        }
+        long perCall = (allocations.getThreadAllocatedBytes(threadId) - before) / ITERATIONS;
+        assertTrue(path + " allocated " + perCall + " bytes per call, budget is " + budget, perCall <= budget);
+    }
+}
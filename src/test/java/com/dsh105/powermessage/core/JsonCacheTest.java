@@ -0,0 +1,82 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.core;
+
+import org.bukkit.ChatColor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+public class JsonCacheTest {
+
+    @Before
+    public void enable() {
+        JsonCache.setEnabled(true);
+    }
+
+    @After
+    public void disable() {
+        JsonCache.setEnabled(false);
+    }
+
+    @Test
+    public void identicalMessagesShareJson() {
+        String first = new PowerMessage("Hello ").then("world").colour(ChatColor.RED).link("http://example.com").toJson();
+        long hits = JsonCache.getHits();
+        String second = new PowerMessage("Hello ").then("world").colour(ChatColor.RED).link("http://example.com").toJson();
+        assertSame(first, second);
+        assertEquals(hits + 1, JsonCache.getHits());
+    }
+
+    @Test
+    public void appendedMessagesAreNotExpanded() {
+        PowerMessage appended = new PowerMessage("one").then("two").then("three");
+        PowerMessage powerMessage = new PowerMessage("start ").append(appended);
+        String json = powerMessage.toJson();
+        assertEquals(2, powerMessage.segmentCount());
+
+        PowerMessage other = new PowerMessage("start ").append(new PowerMessage("one").then("two").then("three"));
+        assertSame(json, other.toJson());
+        assertEquals(2, other.segmentCount());
+    }
+
+    @Test
+    public void cachedKeysAreUnaffectedByLaterEdits() {
+        PowerMessage powerMessage = new PowerMessage("click").link("http://example.com");
+        String json = powerMessage.toJson();
+        powerMessage.getSnippet(0).getActionEvent("click", "open_url").withData("http://changed.example.com");
+        assertFalse(json.equals(powerMessage.toJson()));
+
+        long hits = JsonCache.getHits();
+        assertSame(json, new PowerMessage("click").link("http://example.com").toJson());
+        assertEquals(hits + 1, JsonCache.getHits());
+    }
+
+    @Test
+    public void splicedSnippetEqualityIsSymmetric() {
+        PowerSnippet snippet = new PowerSnippet("text");
+        PowerSnippet spliced = new SplicedSnippet(new PowerMessage(""));
+        assertEquals(snippet.equals(spliced), spliced.equals(snippet));
+        assertFalse(new PowerSnippet("").equals(spliced));
+        assertFalse(spliced.equals(new PowerSnippet("")));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.core;
+
+import com.dsh105.powermessage.layout.ChatLayout;
+import org.bukkit.ChatColor;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class PowerMessageAppendTest {
+
+    private static PowerMessage appended() {
+        return new PowerMessage("one").then("two").then("three");
+    }
+
+    @Test
+    public void groupSurvivesExpansionByGetSnippets() {
+        PowerMessage powerMessage = new PowerMessage("a").append(appended()).then("b");
+        Group group = powerMessage.group(1);
+        powerMessage.then("c");
+        powerMessage.getSnippets();
+
+        group.colour(ChatColor.RED);
+
+        assertEquals("b", group.getText());
+        assertEquals(Collections.singletonList(ChatColor.RED), powerMessage.getSnippet(4).getColours());
+        assertEquals(Collections.<ChatColor>emptyList(), powerMessage.getSnippet(3).getColours());
+    }
+
+    @Test
+    public void groupSurvivesExpansionByGetWidth() {
+        PowerMessage powerMessage = new PowerMessage("a").append(appended()).then("b");
+        Group group = powerMessage.group();
+        powerMessage.then("c");
+        ChatLayout.getWidth(powerMessage);
+
+        group.colour(ChatColor.RED);
+
+        assertEquals("aonetwothreeb", group.getText());
+        assertEquals(Collections.<ChatColor>emptyList(), powerMessage.getSnippet(5).getColours());
+    }
+
+    @Test
+    public void groupIsUnaffectedByLaterAppend() {
+        PowerMessage powerMessage = new PowerMessage("a").append(appended()).then("b");
+        Group group = powerMessage.group(0, 2);
+        powerMessage.append(appended());
+        powerMessage.toJson();
+        powerMessage.getSnippets();
+
+        group.colour(ChatColor.RED);
+
+        assertEquals("aone", group.getText());
+        assertEquals(Arrays.asList(ChatColor.RED), powerMessage.getSnippet(1).getColours());
+        assertEquals(Collections.<ChatColor>emptyList(), powerMessage.getSnippet(2).getColours());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.core;
+
+import com.dsh105.powermessage.action.ActionEvent;
+import org.bukkit.ChatColor;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PowerMessageCloneTest {
+
+    @Test
+    public void editingCloneLeavesOriginalUnchanged() throws CloneNotSupportedException {
+        PowerMessage base = new PowerMessage("base").then("second").link("http://example.com");
+        String json = base.toJson();
+        String content = base.getContent();
+
+        PowerMessage cloned = (PowerMessage) base.clone();
+        cloned.colour(ChatColor.RED);
+        cloned.then(" extra");
+        cloned.getSnippet(0).setText("changed");
+
+        assertEquals(json, base.toJson());
+        assertEquals(content, base.getContent());
+        assertEquals(2, base.groupCount());
+        assertEquals(3, cloned.groupCount());
+    }
+
+    @Test
+    public void editingOriginalLeavesCloneUnchanged() throws CloneNotSupportedException {
+        PowerMessage base = new PowerMessage("base").then("second");
+        PowerMessage cloned = (PowerMessage) base.clone();
+        String json = cloned.toJson();
+
+        base.colour(ChatColor.RED);
+        base.then(" extra");
+        base.getSnippet(0).setText("changed");
+
+        assertEquals(json, cloned.toJson());
+        assertEquals(2, cloned.groupCount());
+    }
+
+    @Test
+    public void editingSnippetsFromGetSnippetsLeavesMessagesUnchanged() throws CloneNotSupportedException {
+        PowerMessage base = new PowerMessage("base").then("link").link("http://example.com");
+        String json = base.toJson();
+        PowerMessage cloned = (PowerMessage) base.clone();
+
+        cloned.getSnippets().get(1).getActionEvent("click", "open_url").withData("http://evil.example.com");
+        cloned.getSnippets().get(0).withColour(ChatColor.RED);
+
+        for (PowerMessage powerMessage : new PowerMessage[]{base, cloned}) {
+            assertEquals("http://example.com", powerMessage.getSnippet(1).getActionEvent("click", "open_url").getData());
+            assertTrue(powerMessage.getSnippet(0).getColours().isEmpty());
+            assertEquals(json, powerMessage.toJson());
+        }
+    }
+
+    @Test
+    public void editingSnippetsWhileIteratingLeavesMessagesUnchanged() throws CloneNotSupportedException {
+        PowerMessage base = new PowerMessage("base").then("link").link("http://example.com");
+        String json = base.toJson();
+        PowerMessage cloned = (PowerMessage) base.clone();
+
+        for (PowerSnippet snippet : cloned) {
+            snippet.withColour(ChatColor.RED);
+            snippet.setText("changed");
+            for (ActionEvent event : snippet.getActionEvents()) {
+                event.withData("http://evil.example.com");
+            }
+        }
+
+        for (PowerMessage powerMessage : new PowerMessage[]{base, cloned}) {
+            assertEquals("base", powerMessage.getSnippet(0).getText());
+            assertTrue(powerMessage.getSnippet(0).getColours().isEmpty());
+            assertEquals("http://example.com", powerMessage.getSnippet(1).getActionEvent("click", "open_url").getData());
+            assertEquals(json, powerMessage.toJson());
+        }
+    }
+
+    @Test
+    public void appendedMessageIsUnaffectedByLaterEdits() {
+        PowerMessage appended = new PowerMessage("appended");
+        String json = appended.toJson();
+
+        PowerMessage powerMessage = new PowerMessage("start").append(appended);
+        powerMessage.colour(ChatColor.RED);
+        powerMessage.then(" end");
+        powerMessage.group().colour(ChatColor.BLUE);
+
+        assertEquals(json, appended.toJson());
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.core;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class PowerMessageSerializationTest {
+
+    @Test
+    public void roundTrip() {
+        PowerMessage powerMessage = new PowerMessage("&aHello ").then("world").link("http://example.com").tooltip("Open");
+        PowerMessage deserialized = PowerMessage.deserialize(powerMessage.serialize());
+        assertEquals(powerMessage.toJson(), deserialized.toJson());
+        assertEquals(powerMessage.getContent(), deserialized.getContent());
+        assertEquals(powerMessage.getSnippets(), deserialized.getSnippets());
+    }
+
+    @Test
+    public void messagesFromTheSameDataDoNotShareEvents() {
+        Map<String, Object> serialized = new PowerMessage("click").link("http://example.com").serialize();
+        PowerMessage first = PowerMessage.deserialize(serialized);
+        PowerMessage second = PowerMessage.deserialize(serialized);
+
+        first.getSnippet(0).getActionEvent("click", "open_url").withData("http://changed.example.com");
+        assertEquals("http://example.com", second.getSnippet(0).getActionEvent("click", "open_url").getData());
+        assertEquals("http://changed.example.com", first.getSnippet(0).getActionEvent("click", "open_url").getData());
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.core;
+
+import org.bukkit.ChatColor;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+
+public class PowerMessageWriterTest {
+
+    @Test
+    public void matchesPowerMessage() throws IOException {
+        StringWriter out = new StringWriter();
+        PowerMessageWriter writer = new PowerMessageWriter(out);
+        writer.then("Hello ").colour(ChatColor.GREEN).then("world").link("http://example.com").tooltip("Open");
+        writer.close();
+
+        PowerMessage expected = new PowerMessage("Hello ").colour(ChatColor.GREEN).then("world").link("http://example.com").tooltip("Open");
+        assertEquals(expected.toJson(), out.toString());
+    }
+
+    @Test
+    public void addedMessageCanBeModified() throws IOException {
+        PowerMessage added = new PowerMessage("one").then("two");
+        String addedJson = added.toJson();
+
+        StringWriter out = new StringWriter();
+        PowerMessageWriter writer = new PowerMessageWriter(out);
+        writer.then("start ").then(added).colour(ChatColor.RED).tooltip("Both").then(" end");
+        writer.close();
+
+        PowerMessage expected = new PowerMessage("start ").then("one").then("two").group(2).colour(ChatColor.RED).tooltip("Both").exit().then(" end");
+        assertEquals(expected.toJson(), out.toString());
+        assertEquals(addedJson, added.toJson());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void closed() throws IOException {
+        PowerMessageWriter writer = new PowerMessageWriter(new StringWriter());
+        writer.then("text");
+        writer.close();
+        writer.then("more");
+    }
+}
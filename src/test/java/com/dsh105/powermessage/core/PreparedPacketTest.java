@@ -0,0 +1,75 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.core;
+
+import com.dsh105.powermessage.dialect.ChatDialects;
+import com.dsh105.powermessage.dialect.LegacyDialect;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PreparedPacketTest {
+
+    @After
+    public void reset() {
+        JsonCache.setEnabled(false);
+        ChatDialects.setCurrent(new LegacyDialect());
+    }
+
+    @Test
+    public void precompiledPacketFollowsDialect() {
+        PrecompiledMessage message = new PrecompiledMessage("test", "{\"text\":\"hello\"}", "hello");
+        ChatDialects.setCurrent(new TaggedDialect("first"));
+        assertEquals("first:{\"text\":\"hello\"}", message.toPacket());
+
+        ChatDialects.setCurrent(new TaggedDialect("second"));
+        assertEquals("second:{\"text\":\"hello\"}", message.toPacket());
+    }
+
+    @Test
+    public void cachedPacketFollowsDialect() {
+        JsonCache.setEnabled(true);
+        PowerMessage message = new PowerMessage("hello");
+        String json = message.toJson();
+        ChatDialects.setCurrent(new TaggedDialect("first"));
+        assertEquals("first:" + json, message.toPacket());
+
+        ChatDialects.setCurrent(new TaggedDialect("second"));
+        assertEquals("second:" + json, message.toPacket());
+    }
+
+    private static class TaggedDialect extends LegacyDialect {
+
+        private final String tag;
+
+        public TaggedDialect(String tag) {
+            this.tag = tag;
+        }
+
+        @Override
+        public boolean isJsonSupported() {
+            return true;
+        }
+
+        @Override
+        public Object prepareJson(String json) {
+            return tag + ":" + json;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.registry;
+
+import com.dsh105.powermessage.core.PowerMessage;
+import org.bukkit.ChatColor;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class MessageRegistryTest {
+
+    @Test
+    public void concurrentLookupsReturnIndependentCopies() throws Exception {
+        final MessageRegistry registry = new MessageRegistry();
+        PowerMessage registered = new PowerMessage("Hello ").then("world").link("http://example.com");
+        final String json = registered.toJson();
+        registry.register("greeting", registered);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        for (int j = 0; j < 2000; j++) {
+                            PowerMessage copy = registry.get("greeting");
+                            if (!json.equals(copy.toJson())) {
+                                return false;
+                            }
+                            copy.colour(ChatColor.RED).then("!");
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertEquals(true, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(json, registered.toJson());
+        assertEquals(json, registry.get("greeting").toJson());
+    }
+
+    @Test
+    public void unknownMessage() {
+        assertNull(new MessageRegistry().get("missing"));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.send;
+
+import com.dsh105.powermessage.Stubs;
+import com.dsh105.powermessage.core.PowerMessage;
+import com.dsh105.powermessage.dialect.ChatDialects;
+import com.dsh105.powermessage.dialect.LegacyDialect;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class ChatCoalescerTest {
+
+    private final Stubs.StubPlayer player = new Stubs.StubPlayer("player", new Location(Stubs.world("world"), 0, 64, 0));
+    private final ChatCoalescer coalescer = new ChatCoalescer(Stubs.plugin(player.getPlayer()));
+
+    private final ThrottledDialect dialect = new ThrottledDialect();
+
+    @Before
+    public void useThrottledDialect() {
+        ChatDialects.setCurrent(dialect);
+    }
+
+    @Test
+    public void sentImmediatelyWhileWritable() {
+        coalescer.send(new PowerMessage("first"), player.getPlayer());
+        coalescer.send(new PowerMessage("second"), player.getPlayer());
+
+        assertEquals(Arrays.asList("first", "second"), player.getMessages());
+    }
+
+    @Test
+    public void bufferedUntilNextTickWhileNotWritable() {
+        dialect.writable = false;
+        coalescer.send(new PowerMessage("first"), player.getPlayer());
+        dialect.writable = true;
+        coalescer.send(new PowerMessage("second"), player.getPlayer());
+        assertEquals(Collections.emptyList(), player.getMessages());
+
+        Stubs.runScheduledTasks();
+        assertEquals(Arrays.asList("first", "second"), player.getMessages());
+
+        coalescer.send(new PowerMessage("third"), player.getPlayer());
+        assertEquals(Arrays.asList("first", "second", "third"), player.getMessages());
+    }
+
+    @Test
+    public void directSendDoesNotOvertakeBufferedMessages() {
+        dialect.writable = false;
+        coalescer.send(new PowerMessage("buffered"), player.getPlayer());
+        new PowerMessage("direct").send(player.getPlayer());
+        coalescer.send(new PowerMessage("later"), player.getPlayer());
+        Stubs.runScheduledTasks();
+
+        assertEquals(Arrays.asList("buffered", "direct", "later"), player.getMessages());
+    }
+
+    @Test
+    public void joinedWithinPacketLimit() {
+        String json = new PowerMessage("line").toJson();
+        assertEquals(Collections.singletonList(json), ChatCoalescer.join(Collections.singletonList(json)));
+        assertEquals(Collections.singletonList("{\"text\":\"\",\"extra\":[" + json + ",{\"text\":\"\\n\"}," + json + "]}"), ChatCoalescer.join(Arrays.asList(json, json)));
+    }
+
+    private static class ThrottledDialect extends LegacyDialect {
+
+        private boolean writable = true;
+
+        @Override
+        public boolean isWritable(Player player) {
+            return writable;
+        }
+    }
+}
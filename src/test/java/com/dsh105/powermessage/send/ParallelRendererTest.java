@@ -0,0 +1,64 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.send;
+
+import com.dsh105.powermessage.Stubs;
+import com.dsh105.powermessage.core.PowerMessage;
+import com.dsh105.powermessage.dialect.ChatDialects;
+import com.dsh105.powermessage.dialect.LegacyDialect;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ParallelRendererTest {
+
+    @Before
+    public void useLegacyDialect() {
+        ChatDialects.setCurrent(new LegacyDialect());
+    }
+
+    @Test
+    public void personalisesCopiesOfTemplate() {
+        World world = Stubs.world("world");
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            players.add(new Stubs.StubPlayer("player" + i, new Location(world, 0, 64, 0)).getPlayer());
+        }
+        PowerMessage template = new PowerMessage("Hello ").then("there").link("http://example.com");
+        String json = template.toJson();
+
+        List<Object> rendered = new ParallelRenderer().render(players, template, new ParallelRenderer.Personaliser() {
+            @Override
+            public void personalise(PowerMessage message, Player player) {
+                message.then(", " + player.getName());
+            }
+        });
+
+        for (int i = 0; i < players.size(); i++) {
+            assertEquals("Hello there, player" + i, rendered.get(i));
+        }
+        assertEquals(json, template.toJson());
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * This file is part of PowerMessage.
+ *
+ * PowerMessage is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PowerMessage is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PowerMessage.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dsh105.powermessage.send;
+
+import com.dsh105.powermessage.Stubs;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RecipientIndexTest {
+
+    private final World world = Stubs.world("world");
+    private final World nether = Stubs.world("nether");
+    private final Stubs.StubPlayer near = new Stubs.StubPlayer("near", new Location(world, 5, 64, 5)).withPermission("chat.staff");
+    private final Stubs.StubPlayer far = new Stubs.StubPlayer("far", new Location(world, 500, 64, 500));
+    private final Stubs.StubPlayer elsewhere = new Stubs.StubPlayer("elsewhere", new Location(nether, 5, 64, 5));
+
+    private RecipientIndex createIndex() {
+        return new RecipientIndex(Stubs.plugin(near.getPlayer(), far.getPlayer(), elsewhere.getPlayer()));
+    }
+
+    @Test
+    public void playersInRange() {
+        RecipientIndex index = createIndex();
+        Location centre = new Location(world, 0, 64, 0);
+        assertEquals(new HashSet<>(asList(near)), new HashSet<>(index.getPlayersInRange(centre, 16)));
+        // Covers more cells than there are players in the world
+        assertEquals(new HashSet<>(asList(near, far)), new HashSet<>(index.getPlayersInRange(centre, 1000)));
+        assertTrue(index.getPlayersInRange(new Location(world, -2000, 64, -2000), 16).isEmpty());
+    }
+
+    @Test
+    public void playersByWorldAndPermission() {
+        RecipientIndex index = createIndex();
+        assertEquals(new HashSet<>(asList(near, far)), index.getPlayersInWorld(world));
+        assertEquals(new HashSet<>(asList(near)), index.getPlayersWithPermission("chat.staff"));
+    }
+
+    @Test
+    public void emptyCellsAreRemoved() {
+        RecipientIndex index = createIndex();
+        assertEquals(3, index.getCellCount());
+
+        Location from = near.getPlayer().getLocation();
+        Location to = new Location(world, 1000, 64, 1000);
+        near.setLocation(to);
+        index.onMove(new PlayerMoveEvent(near.getPlayer(), from, to));
+        assertEquals(3, index.getCellCount());
+        assertEquals(new HashSet<>(asList(near)), new HashSet<>(index.getPlayersInRange(to, 4)));
+
+        index.onQuit(new PlayerQuitEvent(near.getPlayer(), null));
+        index.onQuit(new PlayerQuitEvent(far.getPlayer(), null));
+        assertEquals(1, index.getCellCount());
+    }
+
+    @Test
+    public void respawnedPlayersAreMovedOnTheNextTick() {
+        RecipientIndex index = createIndex();
+        Location spawn = new Location(world, 1000, 64, 1000);
+        index.onRespawn(new PlayerRespawnEvent(near.getPlayer(), spawn, false));
+        near.setLocation(spawn);
+        assertTrue(index.getPlayersInRange(spawn, 4).isEmpty());
+
+        Stubs.runScheduledTasks();
+        assertEquals(new HashSet<>(asList(near)), new HashSet<>(index.getPlayersInRange(spawn, 4)));
+        assertTrue(index.getPlayersInRange(new Location(world, 0, 64, 0), 16).isEmpty());
+    }
+
+    private static List<Player> asList(Stubs.StubPlayer... players) {
+        Player[] result = new Player[players.length];
+        for (int i = 0; i < players.length; i++) {
+            result[i] = players[i].getPlayer();
+        }
+        return Arrays.asList(result);
+    }
+}